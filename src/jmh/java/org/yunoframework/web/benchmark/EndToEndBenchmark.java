@@ -0,0 +1,201 @@
+package org.yunoframework.web.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.yunoframework.web.Yuno;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second of whole server on loopback interface. Every benchmark thread is client with it's own keep-alive connection,
+ * which sends request and waits for complete response before sending next one.
+ * Amount of clients can be changed by JMH's "-t" option
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+public class EndToEndBenchmark {
+
+	private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+	private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Server started once for whole benchmark
+	 */
+	@State(Scope.Benchmark)
+	public static class Server {
+
+		private Yuno yuno;
+		private int port;
+
+		@Setup
+		public void start() throws Exception {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				this.port = socket.getLocalPort();
+			}
+
+			this.yuno = Yuno.builder()
+					.threads(Runtime.getRuntime().availableProcessors())
+					.reactors(Math.max(1, Runtime.getRuntime().availableProcessors() / 2))
+					.build();
+			this.yuno.get("/hello", (request, response) -> response.html("Hello, World!"));
+			this.yuno.get("/json", (request, response) -> response.json(new Message("Hello, World!", Arrays.asList(1, 2, 3))));
+
+			Thread thread = new Thread(() -> {
+				try {
+					this.yuno.listen("127.0.0.1", this.port);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}, "Yuno-Benchmark-Server");
+			thread.setDaemon(true);
+			thread.start();
+
+			// Server binds it's socket on it's own thread
+			long deadline = System.currentTimeMillis() + 10000;
+			while (true) {
+				try {
+					SocketChannel.open(new InetSocketAddress("127.0.0.1", this.port)).close();
+					return;
+				} catch (IOException e) {
+					if (System.currentTimeMillis() > deadline) {
+						throw new IllegalStateException("Server did not start", e);
+					}
+
+					Thread.sleep(10);
+				}
+			}
+		}
+
+		@TearDown
+		public void stop() throws IOException {
+			this.yuno.stop();
+		}
+	}
+
+	/**
+	 * Keep-alive connection of one benchmark thread
+	 */
+	@State(Scope.Thread)
+	public static class Client {
+
+		private SocketChannel channel;
+		private ByteBuffer buffer;
+		private ByteBuffer helloRequest;
+		private ByteBuffer jsonRequest;
+
+		@Setup
+		public void connect(Server server) throws IOException {
+			this.channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.port));
+			this.channel.socket().setTcpNoDelay(true);
+			this.buffer = ByteBuffer.allocateDirect(1024 * 64);
+			this.helloRequest = request("/hello");
+			this.jsonRequest = request("/json");
+		}
+
+		@TearDown
+		public void close() throws IOException {
+			this.channel.close();
+		}
+
+		/**
+		 * Sends request and reads whole response
+		 * @return length of response in bytes
+		 */
+		private int exchange(ByteBuffer request) throws IOException {
+			request.rewind();
+			while (request.hasRemaining()) {
+				this.channel.write(request);
+			}
+
+			this.buffer.clear();
+			int headersEnd = -1;
+			int contentLength = -1;
+			while (headersEnd == -1 || this.buffer.position() < headersEnd + contentLength) {
+				if (this.channel.read(this.buffer) < 0) {
+					throw new EOFException("Server closed connection");
+				}
+
+				if (headersEnd == -1) {
+					int end = indexOf(this.buffer, HEADERS_END, 0);
+					if (end != -1) {
+						headersEnd = end + HEADERS_END.length;
+						contentLength = parseContentLength(this.buffer, headersEnd);
+					}
+				}
+			}
+
+			return this.buffer.position();
+		}
+
+		private static ByteBuffer request(String path) {
+			return ByteBuffer.wrap(("GET " + path + " HTTP/1.1\r\n" +
+					"Host: 127.0.0.1\r\n" +
+					"Accept: */*\r\n" +
+					"User-Agent: Yuno-Benchmark\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		}
+
+		private static int parseContentLength(ByteBuffer buffer, int headersEnd) throws IOException {
+			int start = indexOf(buffer, CONTENT_LENGTH, 0);
+			if (start == -1 || start > headersEnd) {
+				throw new IOException("Response does not have Content-Length");
+			}
+
+			int length = 0;
+			for (int i = start + CONTENT_LENGTH.length; buffer.get(i) != '\r'; i++) {
+				length = length * 10 + (buffer.get(i) - '0');
+			}
+
+			return length;
+		}
+
+		private static int indexOf(ByteBuffer buffer, byte[] pattern, int from) {
+			int end = buffer.position() - pattern.length;
+			outer:
+			for (int i = from; i <= end; i++) {
+				for (int j = 0; j < pattern.length; j++) {
+					if (buffer.get(i + j) != pattern[j]) {
+						continue outer;
+					}
+				}
+
+				return i;
+			}
+
+			return -1;
+		}
+	}
+
+	@Benchmark
+	public int hello(Client client) throws IOException {
+		return client.exchange(client.helloRequest);
+	}
+
+	@Benchmark
+	public int json(Client client) throws IOException {
+		return client.exchange(client.jsonRequest);
+	}
+
+	/**
+	 * Object serialized to JSON
+	 */
+	public static class Message {
+		public String message;
+		public List<Integer> numbers;
+
+		public Message(String message, List<Integer> numbers) {
+			this.message = message;
+			this.numbers = numbers;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package org.yunoframework.web.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import com.jsoniter.JsonIterator;
+import org.yunoframework.web.data.Request;
+import org.yunoframework.web.http.BaselineHttpParser;
+import org.yunoframework.web.http.HttpParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of request by {@see HttpParser#parseRequest(ByteBuffer)} with different amount of headers and types of body.
+ * Body is requested like handler would do it, so benchmark includes decoding of form and JSON.
+ * Baseline String parser {@see BaselineHttpParser} from test sources is measured on the same requests for comparison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class HttpParserBenchmark {
+
+	@Param({"4", "16", "64"})
+	private int headers;
+
+	@Param({"none", "form", "json", "binary"})
+	private String body;
+
+	private ByteBuffer request;
+	private byte[] heapRequest;
+
+	@Setup
+	public void setup() {
+		String content;
+		String contentType;
+		switch (this.body) {
+			case "form":
+				content = "name=mikigal&email=mikigal%40example.com&city=Warsaw&accept=true&tags=a%2Cb%2Cc";
+				contentType = "application/x-www-form-urlencoded";
+				break;
+			case "json":
+				content = "{\"name\":\"mikigal\",\"count\":42,\"tags\":[\"fast\",\"simple\",\"nio\"]}";
+				contentType = "application/json";
+				break;
+			case "binary":
+				content = Strings.repeat("x", 4096);
+				contentType = "application/octet-stream";
+				break;
+			default:
+				content = "";
+				contentType = null;
+		}
+
+		StringBuilder request = new StringBuilder();
+		request.append(content.isEmpty() ? "GET" : "POST").append(" /api/users/42?fields=name,email&page=1 HTTP/1.1\r\n");
+		request.append("Host: localhost:8080\r\n");
+		for (int i = 1; i < this.headers; i++) {
+			request.append("X-Header-").append(i).append(": value-of-header-").append(i).append("\r\n");
+		}
+
+		if (contentType != null) {
+			request.append("Content-Type: ").append(contentType).append("\r\n");
+			request.append("Content-Length: ").append(content.length()).append("\r\n");
+		}
+
+		request.append("\r\n").append(content);
+
+		// Reactors read requests to direct buffers
+		byte[] bytes = request.toString().getBytes(StandardCharsets.US_ASCII);
+		this.request = ByteBuffer.allocateDirect(bytes.length);
+		this.request.put(bytes).flip();
+		this.heapRequest = bytes;
+	}
+
+	@Benchmark
+	public void parseRequest(Blackhole blackhole) {
+		Request request = HttpParser.parseRequest(this.request);
+		blackhole.consume(request.header("Host"));
+		blackhole.consume(request.param("page"));
+
+		switch (this.body) {
+			case "form":
+				blackhole.consume(request.body());
+				break;
+			case "json":
+				blackhole.consume(request.bodyAs(Payload.class));
+				break;
+			case "binary":
+				blackhole.consume(request.contentBuffer());
+				break;
+			default:
+				blackhole.consume(request);
+		}
+	}
+
+	@Benchmark
+	public void parseRequestBaseline(Blackhole blackhole) {
+		// Baseline server read requests to byte arrays and parsed body eagerly
+		Request request = BaselineHttpParser.parseRequest(this.heapRequest);
+		blackhole.consume(request.header("Host"));
+		blackhole.consume(request.param("page"));
+
+		switch (this.body) {
+			case "form":
+				blackhole.consume(request.body());
+				break;
+			case "json":
+				blackhole.consume(JsonIterator.deserialize(request.content(), Payload.class));
+				break;
+			case "binary":
+				blackhole.consume(request.content());
+				break;
+			default:
+				blackhole.consume(request);
+		}
+	}
+
+	/**
+	 * Object to which JSON body is decoded
+	 */
+	public static class Payload {
+		public String name;
+		public int count;
+		public List<String> tags;
+	}
+}
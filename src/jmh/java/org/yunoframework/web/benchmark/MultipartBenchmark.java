@@ -0,0 +1,116 @@
+package org.yunoframework.web.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.yunoframework.web.data.MultipartEntry;
+import org.yunoframework.web.http.BaselineHttpParser;
+import org.yunoframework.web.http.ByteSearch;
+import org.yunoframework.web.http.HttpParser;
+import org.yunoframework.web.http.MultipartDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of large multipart/form-data uploads. Body is decoded in memory by {@see HttpParser#parseBody(String, byte[])},
+ * and streamed like reactor does it by {@see MultipartDecoder}, which writes big entries to temporary files.
+ * Baseline parser {@see BaselineHttpParser#parseMultipart(String, byte[])} and it's byte by byte search of boundary
+ * are measured on the same body for comparison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class MultipartBenchmark {
+
+	private static final String BOUNDARY = "----YunoBenchmarkBoundary7MA4YWxkTrZu0gW";
+	private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+	private static final byte[] CLOSING_DELIMITER = ("\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Size of chunks in which body is passed to streaming decoder, like it's read from socket
+	 */
+	private static final int CHUNK_SIZE = 1024 * 64;
+
+	/**
+	 * Entries bigger than this are written to temporary files by streaming decoder
+	 */
+	private static final long THRESHOLD = 1024 * 256;
+
+	@Param({"1048576", "16777216"})
+	private int size;
+
+	private byte[] body;
+	private ByteBuffer directBody;
+	private ByteSearch closingDelimiter;
+
+	@Setup
+	public void setup() throws IOException {
+		byte[] file = new byte[this.size];
+		new Random(0).nextBytes(file);
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream(this.size + 1024);
+		body.write(("--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"description\"\r\n\r\n" +
+				"Benchmark upload\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"upload.bin\"\r\n" +
+				"Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		body.write(file);
+		body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+		this.body = body.toByteArray();
+		this.directBody = ByteBuffer.allocateDirect(this.body.length);
+		this.directBody.put(this.body).flip();
+		this.closingDelimiter = new ByteSearch(CLOSING_DELIMITER);
+	}
+
+	@Benchmark
+	public Object parseInMemory() {
+		return HttpParser.parseBody(CONTENT_TYPE, this.body);
+	}
+
+	@Benchmark
+	public Object parseInMemoryBaseline() {
+		return BaselineHttpParser.parseMultipart(CONTENT_TYPE, this.body);
+	}
+
+	/**
+	 * Searches for closing delimiter, which is at the end of body, so whole body is scanned
+	 */
+	@Benchmark
+	public int searchDelimiter() {
+		return this.closingDelimiter.indexOf(this.body, 0, this.body.length);
+	}
+
+	@Benchmark
+	public int searchDelimiterBaseline() {
+		return BaselineHttpParser.findPattern(this.body, CLOSING_DELIMITER, 0, this.body.length, true);
+	}
+
+	@Benchmark
+	public Map<String, MultipartEntry> decodeStreaming() throws IOException {
+		MultipartDecoder decoder = MultipartDecoder.forContentType(CONTENT_TYPE, THRESHOLD);
+		ByteBuffer body = this.directBody.duplicate();
+		while (body.hasRemaining()) {
+			ByteBuffer chunk = body.slice();
+			chunk.limit(Math.min(CHUNK_SIZE, chunk.remaining()));
+			body.position(body.position() + chunk.limit());
+			decoder.decode(chunk);
+		}
+
+		Map<String, MultipartEntry> entries = decoder.finish();
+
+		// Temporary files are deleted after request is handled, it's part of cost of upload
+		for (MultipartEntry entry : entries.values()) {
+			entry.delete();
+		}
+
+		return entries;
+	}
+}
@@ -0,0 +1,68 @@
+package org.yunoframework.web.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.yunoframework.web.Yuno;
+import org.yunoframework.web.http.HttpMethod;
+import org.yunoframework.web.routing.RouteInfo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of routes by {@see Yuno#findRoute(HttpMethod, String)} with different amount of registered routes.
+ * Routes mix static paths and path parameters, looked up paths are from the end of registration order
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int routes;
+
+	private Yuno yuno;
+	private String staticPath;
+	private String parameterPath;
+	private String missingPath;
+
+	@Setup
+	public void setup() {
+		this.yuno = Yuno.builder().threads(1).reactors(1).build();
+		for (int i = 0; i < this.routes; i++) {
+			if (i % 2 == 0) {
+				this.yuno.get("/api/v1/resource" + i + "/list", (request, response) -> response.html("ok"));
+			}
+			else {
+				this.yuno.get("/api/v1/resource" + i + "/:id/details", (request, response) -> response.html("ok"));
+			}
+		}
+
+		int lastStatic = (this.routes - 1) / 2 * 2;
+		int lastParameter = lastStatic + 1 < this.routes ? lastStatic + 1 : lastStatic - 1;
+		this.staticPath = "/api/v1/resource" + lastStatic + "/list";
+		this.parameterPath = "/api/v1/resource" + lastParameter + "/12345/details";
+		this.missingPath = "/api/v1/resource" + this.routes + "/list";
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.yuno.stop();
+	}
+
+	@Benchmark
+	public RouteInfo findStatic() {
+		return this.yuno.findRoute(HttpMethod.GET, this.staticPath);
+	}
+
+	@Benchmark
+	public RouteInfo findWithParameter() {
+		return this.yuno.findRoute(HttpMethod.GET, this.parameterPath);
+	}
+
+	@Benchmark
+	public RouteInfo findMissing() {
+		return this.yuno.findRoute(HttpMethod.GET, this.missingPath);
+	}
+}
@@ -0,0 +1,105 @@
+package org.yunoframework.web.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.yunoframework.web.data.Response;
+import org.yunoframework.web.http.HttpParser;
+import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.http.Json;
+import org.yunoframework.web.server.BufferOutputStream;
+import org.yunoframework.web.server.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of responses, like {@see org.yunoframework.web.server.ClientConnection} does it before writing them to socket.
+ * Headers are serialized by {@see HttpParser#serializeHeaders(Response, long, ByteBuffer)} to pooled buffer,
+ * JSON content is serialized directly to pooled buffer or to byte array
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class SerializerBenchmark {
+
+	@Param({"2", "8", "32"})
+	private int headers;
+
+	@Param({"10", "1000"})
+	private int items;
+
+	private BufferPool pool;
+	private Response htmlResponse;
+	private Response jsonResponse;
+	private List<Item> json;
+
+	@Setup
+	public void setup() {
+		this.pool = new BufferPool(1024 * 1024 * 16);
+
+		this.htmlResponse = new Response(HttpStatus.OK);
+		this.htmlResponse.html("<html><head><title>Yuno</title></head><body><p>Hello!</p></body></html>");
+		this.jsonResponse = new Response(HttpStatus.OK);
+		for (int i = 0; i < this.headers; i++) {
+			this.htmlResponse.setHeader("X-Header-" + i, "value-of-header-" + i);
+			this.jsonResponse.setHeader("X-Header-" + i, "value-of-header-" + i);
+		}
+
+		this.json = new ArrayList<>();
+		for (int i = 0; i < this.items; i++) {
+			this.json.add(new Item(i, "item-" + i, i * 1.5, Arrays.asList("fast", "simple")));
+		}
+	}
+
+	@Benchmark
+	public void serializeHeaders(Blackhole blackhole) {
+		ByteBuffer buffer = this.pool.acquire(1024 * 4);
+		HttpParser.serializeHeaders(this.htmlResponse, buffer);
+		blackhole.consume(buffer.position());
+		this.pool.release(buffer);
+	}
+
+	@Benchmark
+	public void serializeJsonResponse(Blackhole blackhole) throws IOException {
+		this.jsonResponse.json(this.json);
+
+		BufferOutputStream output = new BufferOutputStream(this.pool, 1024 * 4);
+		Json.write(this.jsonResponse.jsonContent(), output);
+		ByteBuffer content = output.toBuffer();
+
+		ByteBuffer headers = this.pool.acquire(1024 * 4);
+		HttpParser.serializeHeaders(this.jsonResponse, content.remaining(), headers);
+		blackhole.consume(headers.position() + content.remaining());
+
+		this.pool.release(headers);
+		this.pool.release(content);
+	}
+
+	@Benchmark
+	public byte[] encodeJson() {
+		return Json.encode(this.json);
+	}
+
+	/**
+	 * Object serialized to JSON
+	 */
+	public static class Item {
+		public int id;
+		public String name;
+		public double price;
+		public List<String> tags;
+
+		public Item(int id, String name, double price, List<String> tags) {
+			this.id = id;
+			this.name = name;
+			this.price = price;
+			this.tags = tags;
+		}
+	}
+}
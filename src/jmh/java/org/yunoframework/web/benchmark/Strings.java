@@ -0,0 +1,25 @@
+package org.yunoframework.web.benchmark;
+
+/**
+ * Helpers for generating content of benchmarks
+ */
+final class Strings {
+
+	private Strings() {
+	}
+
+	/**
+	 * Repeats string, it's here because String#repeat requires Java 11
+	 * @param value string to repeat
+	 * @param count amount of repetitions
+	 * @return repeated string
+	 */
+	static String repeat(String value, int count) {
+		StringBuilder builder = new StringBuilder(value.length() * count);
+		for (int i = 0; i < count; i++) {
+			builder.append(value);
+		}
+
+		return builder.toString();
+	}
+}
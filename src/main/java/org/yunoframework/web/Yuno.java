@@ -1,15 +1,23 @@
 package org.yunoframework.web;
 
+import org.yunoframework.web.http.Compressor;
 import org.yunoframework.web.http.HttpMethod;
+import org.yunoframework.web.http.Json;
+import org.yunoframework.web.metrics.Metrics;
+import org.yunoframework.web.metrics.MetricsHandler;
+import org.yunoframework.web.routing.AsyncHandler;
 import org.yunoframework.web.routing.MiddlewareInfo;
 import org.yunoframework.web.server.SocketServer;
 import org.yunoframework.web.routing.Handler;
+import org.yunoframework.web.routing.PathRoutes;
 import org.yunoframework.web.routing.RouteInfo;
+import org.yunoframework.web.routing.Router;
+import org.yunoframework.web.routing.StaticFilesHandler;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class Yuno {
 
@@ -19,21 +27,44 @@ public class Yuno {
 	public static final String VERSION = "1.0.0";
 
 	private final int maxRequestSize;
-	private final Set<RouteInfo> routes;
-	private List<MiddlewareInfo> middlewares;
+	private final long maxQueueWait;
+	private final long multipartThreshold;
+	private final Compressor compressor;
+	private final Metrics metrics;
+	private final Router router;
+	private final List<MiddlewareInfo> middlewares;
+	private final List<StaticFilesHandler> staticFiles;
 
 	private final SocketServer socketServer;
 
 	/**
 	 * Creates new instance of Yuno, can be called only by builder
 	 * @param threads number of used by NIO server
+	 * @param reactors number of selector threads used by NIO server
+	 * @param virtualThreads if true requests are handled on virtual threads
+	 * @param queueSize maximum amount of connections waiting for free thread
+	 * @param maxQueueWait maximum time in milliseconds which request can wait for free thread
+	 * @param multipartThreshold size in bytes above which multipart entries are written to temporary files
+	 * @param compressor compressor of responses, null if compression is disabled
+	 * @param metrics registry of metrics, null if metrics are disabled
 	 * @see Yuno.Builder
 	 */
-	private Yuno(int maxRequestSize, int threads) {
+	private Yuno(int maxRequestSize, int threads, int reactors, boolean virtualThreads, int queueSize, long maxQueueWait,
+				 long multipartThreshold, Compressor compressor, Metrics metrics) {
 		this.maxRequestSize = maxRequestSize;
-		this.routes = new HashSet<>();
+		this.maxQueueWait = maxQueueWait;
+		this.multipartThreshold = multipartThreshold;
+		this.compressor = compressor;
+		this.metrics = metrics;
+		this.router = new Router();
 		this.middlewares = new ArrayList<>();
-		this.socketServer = new SocketServer(this, threads);
+		this.staticFiles = new ArrayList<>();
+		this.socketServer = new SocketServer(this, threads, reactors, virtualThreads, queueSize);
+
+		if (metrics != null) {
+			metrics.gauge("yuno_connections_active", "Currently opened connections", this.socketServer::getConnections);
+			metrics.gauge("yuno_queue_depth", "Connections waiting in queue of workers", this.socketServer::getQueueDepth);
+		}
 	}
 
 	/**
@@ -59,18 +90,56 @@ public class Yuno {
 	 * @param port port to bind server
 	 */
 	public void listen(String host, int port) throws IOException {
+		this.router.freeze(this.middlewares);
 		this.socketServer.listen(new InetSocketAddress(host, port));
 	}
 
+	/**
+	 * Stops Yuno server, {@see #listen(String, int)} returns after that. Connections which are already opened are not closed.
+	 * Handlers of static files stop watching their directories
+	 * @throws IOException when network exception occurs
+	 */
+	public void stop() throws IOException {
+		try {
+			this.socketServer.stop();
+		} finally {
+			for (StaticFilesHandler handler : this.staticFiles) {
+				handler.close();
+			}
+		}
+	}
+
 	/**
 	 * Searches RouteInfo of given data
+	 * @param method HTTP method
 	 * @param path path of endpoint
 	 * @return it's RouteInfo if found, else null
 	 */
+	public RouteInfo findRoute(HttpMethod method, String path) {
+		PathRoutes routes = this.router.find(path, new HashMap<>());
+		return routes == null ? null : routes.get(method);
+	}
+
+	/**
+	 * Searches RouteInfo of given path, regardless of it's method
+	 * @param path path of endpoint
+	 * @return GET route of path if it's registered, else route of first registered method of path, null if path is not found
+	 * @deprecated routes are registered per method, use {@see #findRoute(HttpMethod, String)}
+	 */
+	@Deprecated
 	public RouteInfo findRoute(String path) {
-		for (RouteInfo routeInfo : this.routes) {
-			if (routeInfo.getPath().equalsIgnoreCase(path)) {
-				return routeInfo;
+		PathRoutes routes = this.router.find(path, new HashMap<>());
+		if (routes == null) {
+			return null;
+		}
+
+		if (routes.get(HttpMethod.GET) != null) {
+			return routes.get(HttpMethod.GET);
+		}
+
+		for (HttpMethod method : HttpMethod.values()) {
+			if (routes.get(method) != null) {
+				return routes.get(method);
 			}
 		}
 
@@ -78,15 +147,69 @@ public class Yuno {
 	}
 
 	/**
-	 * Registers middleware, middleware with lower priority will be called first
+	 * Searches routes registered for given path
+	 * @param path path of endpoint
+	 * @param pathParams map where values of path parameters (e. g. ":id" from "/users/:id") will be put
+	 * @return routes of path indexed by HTTP method, null if path is not found
+	 * @see Router
+	 */
+	public PathRoutes findRoutes(String path, Map<String, String> pathParams) {
+		return this.router.find(path, pathParams);
+	}
+
+	/**
+	 * Registers middleware which is called before handlers of all routes, middleware with lower priority will be called first.
+	 * Middleware continues to next middleware by returning, it stops handling of request by calling {@see Response#halt()}
 	 * @param handler Handler of middleware {@see Handler}
 	 * @param priority priority of middleware
+	 * @throws IllegalStateException if server is already started
 	 */
-	public void middleware(Handler handler, int priority) {
-		this.middlewares.add(new MiddlewareInfo(handler, priority));
-		this.middlewares = this.middlewares.stream()
-				.sorted(Comparator.comparingInt(MiddlewareInfo::getPriority))
-				.collect(Collectors.toList());
+	public void middleware(Handler handler, int priority) throws IllegalStateException {
+		this.middleware(new MiddlewareInfo(handler, priority));
+	}
+
+	/**
+	 * Registers middleware which is called before handlers of routes with given path prefix, middleware with lower priority will be called first.
+	 * Middleware continues to next middleware by returning, it stops handling of request by calling {@see Response#halt()}
+	 * @param pathPrefix prefix of routes' paths, it must match whole segments, e. g. "/admin" matches "/admin/users/:id", but not "/administrator"
+	 * @param handler Handler of middleware {@see Handler}
+	 * @param priority priority of middleware
+	 * @throws IllegalStateException if path prefix is invalid or server is already started
+	 */
+	public void middleware(String pathPrefix, Handler handler, int priority) throws IllegalStateException {
+		this.middleware(new MiddlewareInfo(handler, priority, pathPrefix, null));
+	}
+
+	/**
+	 * Registers middleware which is called before handlers of routes with given path prefix and method, middleware with lower priority will be called first.
+	 * Middleware continues to next middleware by returning, it stops handling of request by calling {@see Response#halt()}
+	 * @param pathPrefix prefix of routes' paths, it must match whole segments, null if middleware applies to all paths
+	 * @param method HTTP method of routes, HEAD requests are handled by GET routes
+	 * @param handler Handler of middleware {@see Handler}
+	 * @param priority priority of middleware
+	 * @throws IllegalStateException if path prefix is invalid or server is already started
+	 */
+	public void middleware(String pathPrefix, HttpMethod method, Handler handler, int priority) throws IllegalStateException {
+		this.middleware(new MiddlewareInfo(handler, priority, pathPrefix, method));
+	}
+
+	/**
+	 * Registers middleware, it's inserted after middlewares with the same or lower priority, so they stay sorted.
+	 * Chains of middlewares are compiled for every route when server starts {@see RouteInfo#getMiddlewares()}
+	 * @param middleware middleware to register
+	 * @throws IllegalStateException if server is already started
+	 */
+	public void middleware(MiddlewareInfo middleware) throws IllegalStateException {
+		if (this.router.isFrozen()) {
+			throw new IllegalStateException("Middlewares can't be registered after server start");
+		}
+
+		int index = this.middlewares.size();
+		while (index > 0 && this.middlewares.get(index - 1).getPriority() > middleware.getPriority()) {
+			index--;
+		}
+
+		this.middlewares.add(index, middleware);
 	}
 
 	/**
@@ -98,18 +221,14 @@ public class Yuno {
 	}
 
 	/**
-	 * Registers route
+	 * Registers route, path can contain parameters like "/users/:id" and catch-all segment like "/files/*path" {@see Router}
 	 * @param method HTTP method
 	 * @param path path of endpoint
 	 * @param handler handler of endpoint {@see Handler}
-	 * @throws IllegalStateException if route with this path is already registered
+	 * @throws IllegalStateException if route with this path and method is already registered, path is invalid or server is already started
 	 */
 	public void route(HttpMethod method, String path, Handler handler)  throws IllegalStateException {
-		if (this.findRoute(path) != null) {
-			throw new IllegalStateException("Route with this path is already registered");
-		}
-
-		this.routes.add(new RouteInfo(method, path, handler));
+		this.router.add(new RouteInfo(method, path, handler));
 	}
 
 	/**
@@ -148,6 +267,109 @@ public class Yuno {
 		this.route(HttpMethod.DELETE, path, handler);
 	}
 
+	/**
+	 * Registers route with asynchronous handler, worker thread is not blocked while handler prepares response {@see AsyncHandler}
+	 * @param method HTTP method
+	 * @param path path of endpoint
+	 * @param handler asynchronous handler of endpoint {@see AsyncHandler}
+	 * @throws IllegalStateException if route with this path and method is already registered, path is invalid or server is already started
+	 */
+	public void routeAsync(HttpMethod method, String path, AsyncHandler handler) throws IllegalStateException {
+		this.router.add(new RouteInfo(method, path, handler));
+	}
+
+	/**
+	 * Registers route with asynchronous handler for GET method
+	 * @param path path of endpoint
+	 * @param handler asynchronous handler of endpoint {@see AsyncHandler}
+	 */
+	public void getAsync(String path, AsyncHandler handler) {
+		this.routeAsync(HttpMethod.GET, path, handler);
+	}
+
+	/**
+	 * Registers route with asynchronous handler for POST method
+	 * @param path path of endpoint
+	 * @param handler asynchronous handler of endpoint {@see AsyncHandler}
+	 */
+	public void postAsync(String path, AsyncHandler handler) {
+		this.routeAsync(HttpMethod.POST, path, handler);
+	}
+
+	/**
+	 * Registers route with asynchronous handler for PUT method
+	 * @param path path of endpoint
+	 * @param handler asynchronous handler of endpoint {@see AsyncHandler}
+	 */
+	public void putAsync(String path, AsyncHandler handler) {
+		this.routeAsync(HttpMethod.PUT, path, handler);
+	}
+
+	/**
+	 * Registers route with asynchronous handler for DELETE method
+	 * @param path path of endpoint
+	 * @param handler asynchronous handler of endpoint {@see AsyncHandler}
+	 */
+	public void deleteAsync(String path, AsyncHandler handler) {
+		this.routeAsync(HttpMethod.DELETE, path, handler);
+	}
+
+	/**
+	 * Registers route which serves files from directory, with default cache limits (32 MB of cache, files up to 256 KB are cached)
+	 * @param prefix URL prefix under which directory is served, e. g. "/assets"
+	 * @param directory directory with files
+	 * @throws IllegalStateException when directory does not exist or route with this prefix is already registered
+	 * @see StaticFilesHandler
+	 */
+	public void statics(String prefix, File directory) throws IllegalStateException {
+		this.statics(prefix, directory, 1024 * 1024 * 32, 1024 * 256);
+	}
+
+	/**
+	 * Registers route which serves files from directory
+	 * @param prefix URL prefix under which directory is served, e. g. "/assets"
+	 * @param directory directory with files
+	 * @param maxCacheSize maximum amount of bytes kept in memory, 0 to disable cache
+	 * @param maxCachedFileSize maximum size of file which can be kept in memory, bigger files are always sent from disk
+	 * @throws IllegalStateException when directory does not exist or route with this prefix is already registered
+	 * @see StaticFilesHandler
+	 */
+	public void statics(String prefix, File directory, long maxCacheSize, long maxCachedFileSize) throws IllegalStateException {
+		while (prefix.endsWith("/")) {
+			prefix = prefix.substring(0, prefix.length() - 1);
+		}
+
+		StaticFilesHandler handler = new StaticFilesHandler(directory, maxCacheSize, maxCachedFileSize);
+		try {
+			this.route(HttpMethod.GET, prefix + "/*", handler);
+		} catch (IllegalStateException e) {
+			// Handler which was not registered would watch directory forever
+			try {
+				handler.close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+
+			throw e;
+		}
+
+		this.staticFiles.add(handler);
+	}
+
+	/**
+	 * Registers route which exports metrics in Prometheus text format, metrics must be enabled by {@see Yuno.Builder#metrics(boolean)}
+	 * @param path path of endpoint, e. g. "/metrics"
+	 * @throws IllegalStateException when metrics are disabled or route with this path is already registered
+	 * @see Metrics
+	 */
+	public void metrics(String path) throws IllegalStateException {
+		if (this.metrics == null) {
+			throw new IllegalStateException("Metrics are disabled, enable them with Yuno.Builder#metrics(boolean)");
+		}
+
+		this.route(HttpMethod.GET, path, new MetricsHandler(this.metrics));
+	}
+
 	/**
 	 * Sets maximum request size (in bytes) which Yuno will handle, if it's 0 than limit is disabled
 	 * If request is bigger server will send error 413 (Payload too large)
@@ -157,6 +379,39 @@ public class Yuno {
 		return maxRequestSize;
 	}
 
+	/**
+	 * Returns maximum time in milliseconds which request can wait for free thread, if it waits longer server will send error 503 (Service Unavailable).
+	 * If it's 0 than limit is disabled
+	 * @return maximum time in milliseconds which request can wait for free thread
+	 */
+	public long getMaxQueueWait() {
+		return maxQueueWait;
+	}
+
+	/**
+	 * Returns size in bytes above which entries of multipart/form-data requests are written to temporary files instead of memory
+	 * @return size in bytes above which multipart entries are written to temporary files
+	 */
+	public long getMultipartThreshold() {
+		return multipartThreshold;
+	}
+
+	/**
+	 * Returns compressor of responses {@see Compressor}
+	 * @return compressor of responses, null if compression is disabled
+	 */
+	public Compressor getCompressor() {
+		return compressor;
+	}
+
+	/**
+	 * Returns registry of server's metrics {@see Metrics}
+	 * @return registry of metrics, null if metrics are disabled
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Returns new instance of Yuno's builder
 	 * @return new instance of Yuno's builder
@@ -171,6 +426,19 @@ public class Yuno {
 	public static final class Builder {
 		private int maxRequestSize = 1024 * 1024 * 10;
 		private int threads = 4;
+		private int reactors = Runtime.getRuntime().availableProcessors();
+		private boolean virtualThreads = false;
+		private int queueSize = 1024;
+		private long maxQueueWait = 0;
+		private long multipartThreshold = 1024 * 256;
+		private boolean compression = false;
+		private int compressionLevel = 6;
+		private int compressionThreshold = 1024;
+		private List<String> compressibleTypes = Arrays.asList("text/*", "application/json", "application/javascript",
+				"application/xml", "application/xhtml+xml", "image/svg+xml");
+		private long compressionCacheSize = 1024 * 1024 * 16;
+		private boolean jsonStaticCodegen = false;
+		private boolean metrics = false;
 
 		/**
 		 * Sets amount of threads used to handling connections by Yuno, 4 by default
@@ -182,6 +450,58 @@ public class Yuno {
 			return this;
 		}
 
+		/**
+		 * Sets if every request should be handled on new virtual thread instead of fixed pool of threads, false by default.
+		 * It's useful when handlers block on I/O (e. g. JDBC or HTTP calls), amount of threads set by {@see #threads(int)} is ignored then.
+		 * Virtual threads require Java 21 or newer
+		 * @param virtualThreads true to handle requests on virtual threads
+		 * @return This builder
+		 */
+		public Yuno.Builder virtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+			return this;
+		}
+
+		/**
+		 * Sets maximum amount of connections waiting for free thread, 1024 by default.
+		 * When queue is full server will send error 503 (Service Unavailable) with Retry-After header and close connection.
+		 * Set to 0 to disable this limit. It's ignored when virtual threads are used
+		 * @param queueSize maximum amount of connections waiting for free thread
+		 * @return This builder
+		 */
+		public Yuno.Builder queueSize(int queueSize) {
+			this.queueSize = queueSize;
+			return this;
+		}
+
+		/**
+		 * Sets maximum time in milliseconds which request can wait for free thread, disabled by default.
+		 * If request waits longer server will send error 503 (Service Unavailable) with Retry-After header, instead of handling it.
+		 * Set to 0 to disable this limit
+		 * @param maxQueueWait maximum time in milliseconds which request can wait for free thread
+		 * @return This builder
+		 */
+		public Yuno.Builder maxQueueWait(long maxQueueWait) {
+			this.maxQueueWait = maxQueueWait;
+			return this;
+		}
+
+		/**
+		 * Sets amount of selector threads which read requests from connections, amount of available processors by default.
+		 * Accepted connections are spread across them, each one of them has own buffers
+		 * @param reactors amount of selector threads
+		 * @return This builder
+		 * @throws IllegalStateException when amount of reactors is lower than 1
+		 */
+		public Yuno.Builder reactors(int reactors) throws IllegalStateException {
+			if (reactors < 1) {
+				throw new IllegalStateException("Yuno needs at least one reactor");
+			}
+
+			this.reactors = reactors;
+			return this;
+		}
+
 		/**
 		 * Sets maximum request size (in bytes) which Yuno will handle, 10 megabytes by default
 		 * Set to 0 to disable this limit
@@ -193,12 +513,118 @@ public class Yuno {
 			return this;
 		}
 
+		/**
+		 * Sets size in bytes above which entries of multipart/form-data requests are written to temporary files, 256 kilobytes by default.
+		 * Multipart requests are decoded while they're received, so big uploads are never kept in memory.
+		 * Temporary files are deleted after request is handled, handler has to move them to keep them
+		 * @param multipartThreshold size in bytes above which multipart entries are written to temporary files
+		 * @return This builder
+		 */
+		public Yuno.Builder multipartThreshold(long multipartThreshold) {
+			this.multipartThreshold = multipartThreshold;
+			return this;
+		}
+
+		/**
+		 * Sets if content of responses should be compressed with gzip or deflate, false by default.
+		 * Coding is negotiated from Accept-Encoding header of request, files sent directly from disk are not compressed
+		 * @param compression true to compress responses
+		 * @return This builder
+		 */
+		public Yuno.Builder compression(boolean compression) {
+			this.compression = compression;
+			return this;
+		}
+
+		/**
+		 * Sets compression level, from 1 (fastest) to 9 (best compression), 6 by default
+		 * @param compressionLevel compression level
+		 * @return This builder
+		 * @throws IllegalStateException when compression level is not between 1 and 9
+		 */
+		public Yuno.Builder compressionLevel(int compressionLevel) throws IllegalStateException {
+			if (compressionLevel < 1 || compressionLevel > 9) {
+				throw new IllegalStateException("Compression level must be between 1 and 9");
+			}
+
+			this.compressionLevel = compressionLevel;
+			return this;
+		}
+
+		/**
+		 * Sets minimum size of content in bytes which is compressed, 1 kilobyte by default.
+		 * Compressing smaller content costs more than it saves
+		 * @param compressionThreshold minimum size of compressed content in bytes
+		 * @return This builder
+		 */
+		public Yuno.Builder compressionThreshold(int compressionThreshold) {
+			this.compressionThreshold = compressionThreshold;
+			return this;
+		}
+
+		/**
+		 * Sets Content-Types of responses which are compressed, type ending with "/*" (e. g. "text/*") matches all it's subtypes.
+		 * By default text, JSON, JavaScript, XML and SVG are compressed, already compressed formats (e. g. images) should not be added
+		 * @param compressibleTypes Content-Types of compressed responses
+		 * @return This builder
+		 */
+		public Yuno.Builder compressibleTypes(String... compressibleTypes) {
+			this.compressibleTypes = Arrays.asList(compressibleTypes);
+			return this;
+		}
+
+		/**
+		 * Sets maximum amount of bytes kept in cache of compressed content, 16 megabytes by default.
+		 * Only content of cacheable responses (e. g. static files) is cached, set to 0 to disable cache
+		 * @param compressionCacheSize maximum amount of bytes kept in cache of compressed content
+		 * @return This builder
+		 */
+		public Yuno.Builder compressionCacheSize(long compressionCacheSize) {
+			this.compressionCacheSize = compressionCacheSize;
+			return this;
+		}
+
+		/**
+		 * Sets if jsoniter should use encoders and decoders generated at build time, false by default.
+		 * They're generated by jsoniter's StaticCodegen (com.jsoniter.static.codegen.StaticCodegen) with own StaticCodegenConfig,
+		 * so classes are not analyzed with reflection and code is not generated when object is serialized for the first time.
+		 * It changes mode of jsoniter globally, generated classes must be on classpath for every serialized class
+		 * @param jsonStaticCodegen true to use encoders and decoders generated at build time
+		 * @return This builder
+		 */
+		public Yuno.Builder jsonStaticCodegen(boolean jsonStaticCodegen) {
+			this.jsonStaticCodegen = jsonStaticCodegen;
+			return this;
+		}
+
+		/**
+		 * Sets if Yuno should record metrics, false by default. It records latency of every route and status, time which requests
+		 * wait for free thread, amount of connections and transferred bytes. They can be exported by {@see Yuno#metrics(String)}
+		 * @param metrics true to record metrics
+		 * @return This builder
+		 */
+		public Yuno.Builder metrics(boolean metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
 		/**
 		 * Creates instance of Yuno with given parameters
 		 * @return new instance of Yuno
+		 * @throws IllegalStateException when virtual threads are enabled, but not supported by current Java
 		 */
 		public Yuno build() {
-			return new Yuno(this.maxRequestSize, this.threads);
+			// Every worker compresses at most one response at once, virtual threads are limited by amount of processors anyway
+			int workers = this.virtualThreads ? Runtime.getRuntime().availableProcessors() : this.threads;
+			if (this.jsonStaticCodegen) {
+				Json.useStaticCodegen();
+			}
+
+			Compressor compressor = this.compression ? new Compressor(this.compressionLevel, this.compressionThreshold,
+					this.compressibleTypes, workers, this.compressionCacheSize) : null;
+
+			return new Yuno(this.maxRequestSize, this.threads, this.reactors, this.virtualThreads, this.queueSize, this.maxQueueWait,
+					this.multipartThreshold, compressor, this.metrics ? new Metrics() : null);
 		}
 	}
 }
@@ -0,0 +1,20 @@
+package org.yunoframework.web.data;
+
+import java.io.OutputStream;
+
+/**
+ * Writer of response's content which is generated while it's sent, so it doesn't have to be kept in memory
+ * {@see Response#stream(long, BodyWriter)}, with chunked transfer encoding it's length doesn't have to be known before
+ * {@see Response#chunked(BodyWriter)}
+ */
+public interface BodyWriter {
+
+	/**
+	 * This method will be called after status and headers of response are sent, on the same thread which handled request,
+	 * for asynchronous routes it is thread which completed handler {@see org.yunoframework.web.routing.AsyncHandler}
+	 * @param output stream to which content is written, written bytes are sent when stream is flushed or it's buffer is full.
+	 *               It's closed by Yuno after this method returns
+	 * @throws Exception if any exception is thrown from this method, connection is closed, because status of response was already sent
+	 */
+	void write(OutputStream output) throws Exception;
+}
@@ -1,9 +1,16 @@
 package org.yunoframework.web.data;
 
-import java.util.Arrays;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
- * Representation of entry in multipart request
+ * Representation of entry in multipart request.
+ * Small entries are kept in memory, entries bigger than {@see org.yunoframework.web.Yuno#getMultipartThreshold()}
+ * are written to temporary file, which is deleted after request is handled
  */
 public class MultipartEntry {
 
@@ -12,13 +19,44 @@ public class MultipartEntry {
 	private final String contentDisposition;
 	private final String contentType;
 	private final byte[] content;
+	private final Path file;
+	private final long size;
 
+	/**
+	 * Creates entry kept in memory
+	 * @param name "name" parameter from Content-Disposition header
+	 * @param filename "filename" parameter from Content-Disposition header, null if parameter does not exist
+	 * @param contentDisposition Content-Disposition header
+	 * @param contentType Content-Type header
+	 * @param content entry's body
+	 */
 	public MultipartEntry(String name, String filename, String contentDisposition, String contentType, byte[] content) {
 		this.name = name;
 		this.filename = filename;
 		this.contentDisposition = contentDisposition;
 		this.contentType = contentType;
 		this.content = content;
+		this.file = null;
+		this.size = content.length;
+	}
+
+	/**
+	 * Creates entry written to temporary file
+	 * @param name "name" parameter from Content-Disposition header
+	 * @param filename "filename" parameter from Content-Disposition header, null if parameter does not exist
+	 * @param contentDisposition Content-Disposition header
+	 * @param contentType Content-Type header
+	 * @param file temporary file with entry's body
+	 * @param size size of entry's body in bytes
+	 */
+	public MultipartEntry(String name, String filename, String contentDisposition, String contentType, Path file, long size) {
+		this.name = name;
+		this.filename = filename;
+		this.contentDisposition = contentDisposition;
+		this.contentType = contentType;
+		this.content = null;
+		this.file = file;
+		this.size = size;
 	}
 
 	/**
@@ -54,11 +92,60 @@ public class MultipartEntry {
 	}
 
 	/**
-	 * Returns entries' body as byte array
+	 * Returns size of entries' body in bytes
+	 * @return size of entries' body in bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns temporary file with entries' body, it's deleted after request is handled, so handler has to move it to keep it
+	 * @return temporary file with entries' body, null if entry is kept in memory
+	 */
+	public Path path() {
+		return file;
+	}
+
+	/**
+	 * Returns stream of entries' body, it should be preferred over {@see #content()} for big entries
+	 * @return stream of entries' body
+	 * @throws IOException when temporary file can't be opened
+	 */
+	public InputStream inputStream() throws IOException {
+		return this.file == null ? new ByteArrayInputStream(this.content) : Files.newInputStream(this.file);
+	}
+
+	/**
+	 * Returns entries' body as byte array, if entry was written to temporary file whole file is read into memory
 	 * @return entries' body as byte array
+	 * @throws UncheckedIOException when temporary file can't be read
 	 */
-	public byte[] content() {
-		return content;
+	public byte[] content() throws UncheckedIOException {
+		if (this.file == null) {
+			return content;
+		}
+
+		try {
+			return Files.readAllBytes(this.file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Deletes temporary file of this entry, it's called by Yuno after request is handled
+	 */
+	public void delete() {
+		if (this.file == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(this.file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	@Override
@@ -68,7 +155,8 @@ public class MultipartEntry {
 				", filename='" + filename + '\'' +
 				", contentDisposition='" + contentDisposition + '\'' +
 				", contentType='" + contentType + '\'' +
-				", content=" + Arrays.toString(content) +
+				", size=" + size +
+				", file=" + file +
 				'}';
 	}
 }
@@ -1,8 +1,15 @@
 package org.yunoframework.web.data;
 
+import com.jsoniter.spi.JsonException;
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.yunoframework.web.http.HttpMethod;
+import org.yunoframework.web.http.HttpParser;
 import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.http.Json;
+import org.yunoframework.web.http.RawRequest;
 
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,13 +19,16 @@ import java.util.Map;
 public class Request {
 
 	private final HttpStatus parseResult;
+	private final RawRequest raw;
 	private final HttpMethod method;
 	private final String path;
-	private final Map<String, String> params;
-	private final Map<String, String> headers;
+	private Map<String, String> params;
+	private final Map<String, String> pathParams;
+	private Map<String, String> headers;
 	private final Map<String, Object> locals;
-	private final byte[] content;
+	private byte[] content;
 	private Object body;
+	private boolean bodyParsed;
 
 	/**
 	 * Creates instance of Request, should be used by {@see HttpParser}.
@@ -33,13 +43,31 @@ public class Request {
 	public Request(HttpStatus parseResult, HttpMethod method, String path,
 				   Map<String, String> params, Map<String, String> headers, byte[] content, Object body) {
 		this.parseResult = parseResult;
+		this.raw = null;
 		this.method = method;
 		this.path = path;
 		this.params = params;
+		this.pathParams = new CaseInsensitiveMap<>();
 		this.headers = headers;
 		this.locals = new HashMap<>();
 		this.content = content;
 		this.body = body;
+		this.bodyParsed = true;
+	}
+
+	/**
+	 * Creates instance of Request backed by request parsed without copying, should be used by {@see HttpParser}.
+	 * Parameters, headers and body are read from receive buffer when they're requested for the first time,
+	 * so they must not be accessed after request is handled
+	 * @param raw parsed request
+	 */
+	public Request(RawRequest raw) {
+		this.parseResult = HttpStatus.OK;
+		this.raw = raw;
+		this.method = raw.method();
+		this.path = raw.path();
+		this.pathParams = new CaseInsensitiveMap<>();
+		this.locals = new HashMap<>();
 	}
 
 	/**
@@ -48,7 +76,7 @@ public class Request {
 	 * @return value of parameter, null if parameter does not exist
 	 */
 	public String param(String name) {
-		return this.params.get(name);
+		return this.params().get(name);
 	}
 
 	/**
@@ -56,15 +84,45 @@ public class Request {
 	 * @return map with params <ParamName, ParamValue>
 	 */
 	public Map<String, String> params() {
+		if (this.params == null && this.raw != null) {
+			String query = this.raw.query();
+			try {
+				this.params = query == null ? new CaseInsensitiveMap<>() : HttpParser.parseParams(query);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException("UTF-8 is not supported", e);
+			}
+		}
+
 		return this.params;
 	}
 
+	/**
+	 * Returns value of given path parameter (e. g. "id" from route "/users/:id"), name is case insensitive
+	 * @param name name of path parameter, "*" for unnamed catch-all segment
+	 * @return value of path parameter, null if parameter does not exist
+	 */
+	public String pathParam(String name) {
+		return this.pathParams.get(name);
+	}
+
+	/**
+	 * Returns map with path parameters, it's filled while searching route of request
+	 * @return map with path parameters <ParamName, ParamValue>
+	 */
+	public Map<String, String> pathParams() {
+		return this.pathParams;
+	}
+
 	/**
 	 * Returns value of given header, name is case insensitive
 	 * @param name name of header
 	 * @return value of header, null if header does not exist
 	 */
 	public String header(String name) {
+		if (this.headers == null && this.raw != null) {
+			return this.raw.header(name);
+		}
+
 		return this.headers.get(name);
 	}
 
@@ -73,6 +131,13 @@ public class Request {
 	 * @return map with headers <HeaderName, HeaderValue>
 	 */
 	public Map<String, String> headers() {
+		if (this.headers == null && this.raw != null) {
+			this.headers = new CaseInsensitiveMap<>();
+			for (int i = 0; i < this.raw.headerCount(); i++) {
+				this.headers.put(this.raw.headerName(i), this.raw.headerValue(i));
+			}
+		}
+
 		return this.headers;
 	}
 
@@ -94,22 +159,64 @@ public class Request {
 	}
 
 	/**
-	 * Returns raw content of request, if it didn't have body will return 0 length bytes array
+	 * Returns raw content of request, if it didn't have body will return 0 length bytes array.
+	 * Content is copied from receive buffer when it's requested for the first time, {@see #contentBuffer()} does not copy it
 	 * @return raw content of request, if it didn't have body will return 0 length bytes array
 	 */
 	public byte[] content() {
+		if (this.content == null && this.raw != null) {
+			byte[] content = new byte[this.raw.bodyLength()];
+			this.contentBuffer().get(content);
+			this.content = content;
+		}
+
 		return content;
 	}
 
 	/**
-	 * Returns parsed body
+	 * Returns raw content of request as read-only buffer, it's slice of receive buffer so it's valid only while request is handled
+	 * @return raw content of request as read-only buffer, empty buffer if request didn't have body
+	 */
+	public ByteBuffer contentBuffer() {
+		return this.rawContent().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Decodes JSON body of request to object of given class, it's decoded directly from buffer in which request was received
+	 * @param clazz class of object
+	 * @param <T> type of object
+	 * @return decoded object
+	 * @throws JsonException when body is not valid JSON or it does not match class
+	 */
+	public <T> T bodyAs(Class<T> clazz) throws JsonException {
+		return Json.decode(this.rawContent(), clazz);
+	}
+
+	private ByteBuffer rawContent() {
+		if (this.content != null || this.raw == null) {
+			return ByteBuffer.wrap(this.content == null ? new byte[0] : this.content);
+		}
+
+		ByteBuffer content = this.raw.buffer().duplicate();
+		content.limit(this.raw.bodyStart() + this.raw.bodyLength()).position(this.raw.bodyStart());
+		return content.slice();
+	}
+
+	/**
+	 * Returns parsed body, it's parsed when it's requested for the first time
 	 * If request body was x-www-form-urlencoded returned Object will be instance of Map<String, String>
 	 * If request body was multipart/form-data returned Object will ne instance of Map<String, MultipartEntry>
 	 * If request body was other type returned Object will be byte array from request's body
 	 * If request didn't have body it will be null
 	 * @return parsed body, null if request didn't have body
+	 * @throws IllegalStateException if body is malformed
 	 */
-	public Object body() {
+	public Object body() throws IllegalStateException {
+		if (!this.bodyParsed) {
+			this.body = HttpParser.parseBody(this.header("Content-Type"), this.content());
+			this.bodyParsed = true;
+		}
+
 		return body;
 	}
 
@@ -119,6 +226,7 @@ public class Request {
 	 */
 	public void setBody(Object body) {
 		this.body = body;
+		this.bodyParsed = true;
 	}
 
 	/**
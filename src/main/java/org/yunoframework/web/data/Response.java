@@ -1,15 +1,16 @@
 package org.yunoframework.web.data;
 
-import com.jsoniter.output.JsonStream;
+import com.jsoniter.spi.JsonException;
 import org.apache.commons.collections4.map.CaseInsensitiveMap;
-import org.apache.tika.Tika;
 import org.yunoframework.web.http.HttpStatus;
 import org.yunoframework.web.http.HttpStatusType;
+import org.yunoframework.web.http.Json;
+import org.yunoframework.web.http.MimeTypes;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.Map;
 
 /**
@@ -20,6 +21,13 @@ public class Response {
 	private HttpStatus status;
 	private final Map<String, String> headers;
 	private byte[] content;
+	private boolean json;
+	private Object jsonContent;
+	private File file;
+	private long contentLength;
+	private Object cacheKey;
+	private BodyWriter bodyWriter;
+	private boolean halted;
 
 	/**
 	 * Creates new instance of response, defines content as 0 length byte array
@@ -32,7 +40,8 @@ public class Response {
 	}
 
 	/**
-	 * Serializes object to JSON, writes it to this response, sets Content-Type to application/json
+	 * Serializes object to JSON, writes it to this response, sets Content-Type to application/json.
+	 * Object is serialized directly to connection's buffer while response is sent, unless content is requested before
 	 * Sets status of response to 200 OK
 	 * @param object object which you want to write to response
 	 */
@@ -41,11 +50,14 @@ public class Response {
 	}
 
 	/**
-	 * Serializes object to JSON, writes it to this response, sets Content-Type to application/json
+	 * Serializes object to JSON, writes it to this response, sets Content-Type to application/json.
+	 * Object is serialized directly to connection's buffer while response is sent, unless content is requested before
 	 * @param object object which you want to write to response
 	 */
 	public void json(Object object, HttpStatus status) {
-		this.content = JsonStream.serialize(object).getBytes(StandardCharsets.UTF_8);
+		this.setContent(new byte[0]);
+		this.json = true;
+		this.jsonContent = object;
 		this.setHeader("Content-Type", "application/json");
 		this.setStatus(status);
 	}
@@ -65,7 +77,7 @@ public class Response {
 	 * @param status of response
 	 */
 	public void html(String html, HttpStatus status) {
-		this.content = html.getBytes(StandardCharsets.UTF_8);
+		this.setContent(html.getBytes(StandardCharsets.UTF_8));
 		this.setHeader("Content-Type", "text/html");
 		this.setStatus(status);
 	}
@@ -87,7 +99,7 @@ public class Response {
 	 * @param status of response
 	 */
 	public void binary(byte[] data, String contentType, HttpStatus status) {
-		this.content = data;
+		this.setContent(data);
 
 		if (contentType != null) {
 			this.setHeader("Content-Type", contentType);
@@ -98,6 +110,7 @@ public class Response {
 
 	/**
 	 * Write content of file to response, sets Content-Type to MIME type of given type, if MIME type is unknown will set application/octet-stream.
+	 * File is not loaded to memory, it's transferred directly to client's socket while sending response.
 	 * Sets status of response to 200 OK
 	 * @param file file which you want to write
 	 * @throws IOException when something go wrong while reading file
@@ -107,14 +120,76 @@ public class Response {
 	}
 
 	/**
-	 * Write content of file to response, sets Content-Type to MIME type of given type, if MIME type is unknown will set application/octet-stream
+	 * Write content of file to response, sets Content-Type to MIME type of given type, if MIME type is unknown will set application/octet-stream.
+	 * File is not loaded to memory, it's transferred directly to client's socket while sending response
 	 * @param file file which you want to write
 	 * @param status of response
 	 * @throws IOException when something go wrong while reading file
 	 */
 	public void file(File file, HttpStatus status) throws IOException {
-		byte[] bytes = Files.readAllBytes(file.toPath());
-		this.binary(bytes, new Tika().detect(bytes), status);
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+
+		this.content = new byte[0];
+		this.file = file;
+		this.contentLength = file.length();
+		this.cacheKey = null;
+		this.bodyWriter = null;
+		this.setHeader("Content-Type", MimeTypes.detect(file));
+		this.setStatus(status);
+	}
+
+	/**
+	 * Writes content generated by writer to response with chunked transfer encoding, so it's sent while it's generated
+	 * and it's length doesn't have to be known before. Content is written to pooled buffers, writer is blocked while client does not receive them.
+	 * Writer is called after status and headers are sent, so they can't be changed by it.
+	 * Sets status of response to 200 OK
+	 * @param writer writer of content {@see BodyWriter}
+	 */
+	public void chunked(BodyWriter writer) {
+		this.chunked(writer, HttpStatus.OK);
+	}
+
+	/**
+	 * Writes content generated by writer to response with chunked transfer encoding, so it's sent while it's generated
+	 * and it's length doesn't have to be known before. Content is written to pooled buffers, writer is blocked while client does not receive them.
+	 * Writer is called after status and headers are sent, so they can't be changed by it
+	 * @param writer writer of content {@see BodyWriter}
+	 * @param status of response
+	 */
+	public void chunked(BodyWriter writer, HttpStatus status) {
+		this.setContent(new byte[0]);
+		this.bodyWriter = writer;
+		this.contentLength = -1;
+		this.setStatus(status);
+	}
+
+	/**
+	 * Writes content generated by writer to response, it's sent while it's generated, so it's not kept in memory.
+	 * Content is written to pooled buffers, writer is blocked while client does not receive them.
+	 * Writer is called after status and headers are sent, so they can't be changed by it.
+	 * Sets status of response to 200 OK
+	 * @param contentLength length of content in bytes, writer must write exactly that amount of bytes
+	 * @param writer writer of content {@see BodyWriter}
+	 */
+	public void stream(long contentLength, BodyWriter writer) {
+		this.stream(contentLength, writer, HttpStatus.OK);
+	}
+
+	/**
+	 * Writes content generated by writer to response, it's sent while it's generated, so it's not kept in memory.
+	 * Content is written to pooled buffers, writer is blocked while client does not receive them.
+	 * Writer is called after status and headers are sent, so they can't be changed by it
+	 * @param contentLength length of content in bytes, writer must write exactly that amount of bytes
+	 * @param writer writer of content {@see BodyWriter}
+	 * @param status of response
+	 */
+	public void stream(long contentLength, BodyWriter writer, HttpStatus status) {
+		this.setContent(new byte[0]);
+		this.bodyWriter = writer;
+		this.contentLength = contentLength;
+		this.setStatus(status);
 	}
 
 	/**
@@ -174,6 +249,22 @@ public class Response {
 		this.setHeader("Connection", "close");
 	}
 
+	/**
+	 * Stops chain of middlewares, next middlewares and handler of route are not called, response is sent as it is.
+	 * It should be called by middleware, e. g. after it sets 401 (Unauthorized), calling it from route's handler has no effect
+	 */
+	public void halt() {
+		this.halted = true;
+	}
+
+	/**
+	 * Checks if middleware stopped handling of request {@see #halt()}
+	 * @return true if handling of request was stopped by middleware
+	 */
+	public boolean isHalted() {
+		return halted;
+	}
+
 	/**
 	 * Returns status of response
 	 * @return status of response
@@ -184,18 +275,98 @@ public class Response {
 	}
 
 	/**
-	 * Returns content of response as byte array
-	 * @return content of response as byte array, if content is not set, returns 0 length byte array
+	 * Returns content of response as byte array, if content is object set by {@see #json(Object)} it's serialized now
+	 * @return content of response as byte array, if content is not set or response is file, returns 0 length byte array
+	 * @throws JsonException when object set by {@see #json(Object)} can't be serialized
 	 */
-	public byte[] content() {
+	public byte[] content() throws JsonException {
+		if (this.json) {
+			this.content = Json.encode(this.jsonContent);
+			this.json = false;
+			this.jsonContent = null;
+		}
+
 		return content;
 	}
 
 	/**
-	 * Sets content of response to given byte array
+	 * Checks if content of response is object set by {@see #json(Object)}, which is not serialized yet
+	 * @return true if content of response is object which is not serialized yet
+	 */
+	public boolean isJson() {
+		return json;
+	}
+
+	/**
+	 * Returns object set by {@see #json(Object)}, which is not serialized yet
+	 * @return object which will be serialized to JSON, null if content is not JSON or it's already serialized
+	 */
+	public Object jsonContent() {
+		return jsonContent;
+	}
+
+	/**
+	 * Sets content of response to given byte array, it clears cache key {@see #setCacheKey(Object)}
 	 * @param content new content of response
 	 */
 	public void setContent(byte[] content) {
 		this.content = content;
+		this.json = false;
+		this.jsonContent = null;
+		this.file = null;
+		this.contentLength = 0;
+		this.cacheKey = null;
+		this.bodyWriter = null;
+	}
+
+	/**
+	 * Marks content of response as cacheable, so Yuno can cache it's compressed form instead of compressing it for every response.
+	 * Every response with equal key must have the same content and Content-Type, key must implement equals and hashCode.
+	 * It must be called after content is set, because setting content clears it
+	 * @param cacheKey key which identifies content of response, null if content is not cacheable
+	 */
+	public void setCacheKey(Object cacheKey) {
+		this.cacheKey = cacheKey;
+	}
+
+	/**
+	 * Returns key which identifies cacheable content of response
+	 * @return key which identifies content of response, null if content is not cacheable
+	 */
+	public Object cacheKey() {
+		return cacheKey;
+	}
+
+	/**
+	 * Returns file which will be sent as content of response
+	 * @return file which will be sent as content of response, null if content is not file
+	 */
+	public File file() {
+		return file;
+	}
+
+	/**
+	 * Returns writer which generates content of streamed response
+	 * @return writer of content, null if response is not streamed
+	 */
+	public BodyWriter bodyWriter() {
+		return bodyWriter;
+	}
+
+	/**
+	 * Checks if content of response is sent with chunked transfer encoding {@see #chunked(BodyWriter)}
+	 * @return true if content of response is sent with chunked transfer encoding
+	 */
+	public boolean isChunked() {
+		return this.bodyWriter != null && this.contentLength < 0;
+	}
+
+	/**
+	 * Returns length of response's content in bytes, object set by {@see #json(Object)} is serialized to get it's length
+	 * @return length of response's content in bytes, if content is file it's length of file when it was set, -1 if response is chunked
+	 * @throws JsonException when object set by {@see #json(Object)} can't be serialized
+	 */
+	public long contentLength() throws JsonException {
+		return this.file == null && this.bodyWriter == null ? this.content().length : this.contentLength;
 	}
 }
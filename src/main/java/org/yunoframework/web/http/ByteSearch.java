@@ -0,0 +1,145 @@
+package org.yunoframework.web.http;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fast search of byte patterns. Instances search for one pattern with Boyer-Moore-Horspool algorithm,
+ * it's skip table is computed once, so one instance should be kept for every searched pattern (e. g. multipart boundary).
+ * Static methods search for CR and end of headers, they check 8 bytes at once (SWAR - SIMD within a register)
+ */
+public class ByteSearch {
+
+	private static final long CR_BYTES = 0x0D0D0D0D0D0D0D0DL;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+	private final byte[] pattern;
+	private final int[] skip;
+
+	/**
+	 * Creates new search of given pattern
+	 * @param pattern pattern to search for, it can't be empty
+	 */
+	public ByteSearch(byte[] pattern) {
+		this.pattern = pattern.clone();
+		this.skip = new int[256];
+
+		// Distance from last occurrence of byte to end of pattern, pattern can be moved by it when byte does not match
+		for (int i = 0; i < this.skip.length; i++) {
+			this.skip[i] = pattern.length;
+		}
+
+		for (int i = 0; i < pattern.length - 1; i++) {
+			this.skip[pattern[i] & 0xFF] = pattern.length - 1 - i;
+		}
+	}
+
+	/**
+	 * Returns length of searched pattern
+	 * @return length of searched pattern
+	 */
+	public int length() {
+		return pattern.length;
+	}
+
+	/**
+	 * Searches for pattern in given part of array
+	 * @param array array to search in
+	 * @param from index from which pattern is searched
+	 * @param to index to which pattern is searched, pattern must end before it
+	 * @return index of first byte of first occurrence of pattern, -1 if not found
+	 */
+	public int indexOf(byte[] array, int from, int to) {
+		int last = this.pattern.length - 1;
+		byte lastByte = this.pattern[last];
+
+		int i = from;
+		while (i <= to - this.pattern.length) {
+			byte b = array[i + last];
+			if (b == lastByte && this.matches(array, i, last)) {
+				return i;
+			}
+
+			i += this.skip[b & 0xFF];
+		}
+
+		return -1;
+	}
+
+	private boolean matches(byte[] array, int offset, int length) {
+		for (int j = 0; j < length; j++) {
+			if (array[offset + j] != this.pattern[j]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Searches for CR ("\r") in given part of buffer, 8 bytes are checked at once
+	 * @param buffer buffer to search in, it's position is not changed
+	 * @param from index from which CR is searched
+	 * @param to index to which CR is searched
+	 * @return index of first CR, -1 if not found
+	 */
+	public static int indexOfCr(ByteBuffer buffer, int from, int to) {
+		boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+		int i = from;
+		for (; i <= to - 8; i += 8) {
+			long word = buffer.getLong(i);
+			if (littleEndian) {
+				word = Long.reverseBytes(word);
+			}
+
+			long found = crBytes(word);
+			if (found != 0) {
+				// Bytes are in big endian order, so first byte in buffer is the highest one
+				return i + (Long.numberOfLeadingZeros(found) >>> 3);
+			}
+		}
+
+		for (; i < to; i++) {
+			if (buffer.get(i) == '\r') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Searches for "\r\n\r\n" which ends headers of request
+	 * @param buffer buffer to search in, it's position is not changed
+	 * @param from index from which end of headers is searched
+	 * @param to index to which end of headers is searched
+	 * @return index of first byte after "\r\n\r\n", -1 if not found
+	 */
+	public static int indexOfHeadersEnd(ByteBuffer buffer, int from, int to) {
+		int i = from;
+		while (i <= to - 4) {
+			int cr = indexOfCr(buffer, i, to - 3);
+			if (cr == -1) {
+				return -1;
+			}
+
+			if (buffer.get(cr + 1) == '\n' && buffer.get(cr + 2) == '\r' && buffer.get(cr + 3) == '\n') {
+				return cr + 4;
+			}
+
+			i = cr + 1;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns word with highest bit set in every byte which is CR, other bits are cleared.
+	 * Unlike classic "has zero byte" trick it does not have false positives, so position of any set bit is reliable
+	 */
+	private static long crBytes(long word) {
+		long x = word ^ CR_BYTES; // CR bytes become zero
+		long t = (x & LOW_BITS) + LOW_BITS;
+		return ~(t | x | LOW_BITS);
+	}
+}
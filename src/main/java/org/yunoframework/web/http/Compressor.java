@@ -0,0 +1,336 @@
+package org.yunoframework.web.http;
+
+import org.yunoframework.web.data.Response;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses content of responses with gzip or deflate, coding is negotiated from Accept-Encoding header of request.
+ * Only responses with content at least as big as threshold and with allowed Content-Type are compressed,
+ * files sent directly from disk and streamed responses are never compressed. Deflaters are pooled, so their native memory is not allocated for every response.
+ * Compressed content of cacheable responses {@see Response#setCacheKey(Object)} is kept in LRU cache limited by total size.
+ * It's thread safe
+ */
+public class Compressor {
+
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String VARY = "Accept-Encoding";
+
+	private static final byte[] GZIP_HEADER = {0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+	private static final int GZIP_TRAILER_SIZE = 8;
+
+	// Approximate memory used by cache entry, besides compressed content
+	private static final int CACHE_ENTRY_OVERHEAD = 64;
+
+	// Cached instead of content which is not smaller after compression, so it's not compressed again
+	private static final byte[] NOT_COMPRESSIBLE = new byte[0];
+
+	private final int level;
+	private final int threshold;
+	private final String[] types;
+	private final int maxPooledDeflaters;
+	private final long maxCacheSize;
+
+	private final Queue<Deflater> gzipDeflaters;
+	private final Queue<Deflater> deflateDeflaters;
+	private final AtomicInteger pooledDeflaters;
+
+	private final LinkedHashMap<CacheKey, byte[]> cache;
+	private long cacheSize;
+
+	/**
+	 * Creates new instance of Compressor
+	 * @param level compression level, from 1 (fastest) to 9 (best compression)
+	 * @param threshold minimum size of content in bytes which is compressed
+	 * @param types compressed Content-Types, type ending with "/*" (e. g. "text/*") matches all it's subtypes
+	 * @param maxPooledDeflaters maximum amount of idle deflaters kept in pool, it should be amount of worker threads
+	 * @param maxCacheSize maximum amount of bytes of compressed content kept in cache, 0 to disable cache
+	 * @throws IllegalStateException when compression level is invalid
+	 */
+	public Compressor(int level, int threshold, Collection<String> types, int maxPooledDeflaters, long maxCacheSize) throws IllegalStateException {
+		if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+			throw new IllegalStateException("Compression level must be between 1 and 9");
+		}
+
+		this.level = level;
+		this.threshold = threshold;
+		this.types = types.stream().map(String::toLowerCase).toArray(String[]::new);
+		this.maxPooledDeflaters = maxPooledDeflaters;
+		this.maxCacheSize = maxCacheSize;
+		this.gzipDeflaters = new ConcurrentLinkedQueue<>();
+		this.deflateDeflaters = new ConcurrentLinkedQueue<>();
+		this.pooledDeflaters = new AtomicInteger();
+		this.cache = new LinkedHashMap<>(16, 0.75F, true);
+	}
+
+	/**
+	 * Compresses content of response if client accepts gzip or deflate and response can be compressed,
+	 * sets Content-Encoding and Vary headers
+	 * @param acceptEncoding Accept-Encoding header of request, null if it does not exist
+	 * @param response response to compress
+	 */
+	public void compress(String acceptEncoding, Response response) {
+		if (response.file() != null || response.bodyWriter() != null || response.header("Content-Encoding") != null ||
+				!this.isCompressible(response.header("Content-Type"))) {
+			return;
+		}
+
+		// Content depends on Accept-Encoding, even if it's not compressed for this client
+		String vary = response.header("Vary");
+		if (vary == null) {
+			response.setHeader("Vary", VARY);
+		}
+		else if (!vary.toLowerCase().contains("accept-encoding") && !vary.trim().equals("*")) {
+			response.setHeader("Vary", vary + ", " + VARY);
+		}
+
+		// Content is not touched when client does not accept compression, so JSON can be serialized directly to connection's buffer
+		String encoding = negotiate(acceptEncoding);
+		if (encoding == null) {
+			return;
+		}
+
+		byte[] content = response.content();
+		if (content.length < this.threshold) {
+			return;
+		}
+
+		Object cacheKey = response.cacheKey();
+		byte[] compressed = cacheKey == null ? null : this.getCached(new CacheKey(cacheKey, encoding));
+		if (compressed == null) {
+			compressed = this.deflate(content, encoding.equals(GZIP));
+			if (cacheKey != null) {
+				this.putCached(new CacheKey(cacheKey, encoding), compressed);
+			}
+		}
+
+		if (compressed == NOT_COMPRESSIBLE) {
+			return;
+		}
+
+		response.setContent(compressed);
+		response.setCacheKey(cacheKey);
+		response.setHeader("Content-Encoding", encoding);
+	}
+
+	/**
+	 * Chooses coding of content from Accept-Encoding header, gzip is preferred when client accepts both with the same quality
+	 * @param acceptEncoding Accept-Encoding header of request, null if it does not exist
+	 * @return "gzip", "deflate" or null if client does not accept any of them
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+			return null;
+		}
+
+		float gzip = -1;
+		float deflate = -1;
+		float any = -1;
+		for (String coding : acceptEncoding.split(",")) {
+			int separator = coding.indexOf(';');
+			String name = (separator == -1 ? coding : coding.substring(0, separator)).trim().toLowerCase();
+			float quality = separator == -1 ? 1 : parseQuality(coding.substring(separator + 1));
+
+			switch (name) {
+				case GZIP:
+				case "x-gzip":
+					gzip = Math.max(gzip, quality);
+					break;
+				case DEFLATE:
+					deflate = quality;
+					break;
+				case "*":
+					any = quality;
+					break;
+			}
+		}
+
+		// Codings which are not listed are accepted with quality of "*"
+		gzip = gzip == -1 ? any : gzip;
+		deflate = deflate == -1 ? any : deflate;
+
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+
+		return deflate > 0 ? DEFLATE : null;
+	}
+
+	private static float parseQuality(String parameters) {
+		for (String parameter : parameters.split(";")) {
+			String[] split = parameter.split("=", 2);
+			if (split.length == 2 && split[0].trim().equalsIgnoreCase("q")) {
+				try {
+					return Float.parseFloat(split[1].trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+
+		return 1;
+	}
+
+	private boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+
+		int separator = contentType.indexOf(';');
+		String type = (separator == -1 ? contentType : contentType.substring(0, separator)).trim().toLowerCase();
+		for (String allowed : this.types) {
+			if (allowed.endsWith("/*") ? type.startsWith(allowed.substring(0, allowed.length() - 1)) : type.equals(allowed)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Compresses content with pooled deflater
+	 * @return compressed content, {@see #NOT_COMPRESSIBLE} if it's not smaller than original content
+	 */
+	private byte[] deflate(byte[] content, boolean gzip) {
+		if (gzip && content.length <= GZIP_HEADER.length + GZIP_TRAILER_SIZE) {
+			return NOT_COMPRESSIBLE;
+		}
+
+		// Output is not bigger than content, if it does not fit compression is useless
+		byte[] output = new byte[content.length];
+		int offset = 0;
+		int limit = output.length;
+		if (gzip) {
+			System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+			offset = GZIP_HEADER.length;
+			limit -= GZIP_TRAILER_SIZE;
+		}
+
+		Deflater deflater = this.acquire(gzip);
+		try {
+			deflater.setInput(content);
+			deflater.finish();
+			while (!deflater.finished() && offset < limit) {
+				offset += deflater.deflate(output, offset, limit - offset);
+			}
+
+			if (!deflater.finished()) {
+				return NOT_COMPRESSIBLE;
+			}
+		} finally {
+			this.release(deflater, gzip);
+		}
+
+		if (gzip) {
+			CRC32 crc = new CRC32();
+			crc.update(content, 0, content.length);
+			putIntLE(output, offset, (int) crc.getValue());
+			putIntLE(output, offset + 4, content.length);
+			offset += GZIP_TRAILER_SIZE;
+		}
+
+		return Arrays.copyOf(output, offset);
+	}
+
+	private static void putIntLE(byte[] array, int offset, int value) {
+		array[offset] = (byte) value;
+		array[offset + 1] = (byte) (value >>> 8);
+		array[offset + 2] = (byte) (value >>> 16);
+		array[offset + 3] = (byte) (value >>> 24);
+	}
+
+	/**
+	 * Leases deflater from pool, gzip uses raw deflate stream, header and trailer are written by {@see #deflate(byte[], boolean)}
+	 */
+	private Deflater acquire(boolean gzip) {
+		Deflater deflater = (gzip ? this.gzipDeflaters : this.deflateDeflaters).poll();
+		if (deflater == null) {
+			return new Deflater(this.level, gzip);
+		}
+
+		this.pooledDeflaters.decrementAndGet();
+		return deflater;
+	}
+
+	/**
+	 * Gives deflater back to pool, deflaters above limit release their native memory immediately
+	 */
+	private void release(Deflater deflater, boolean gzip) {
+		if (this.pooledDeflaters.incrementAndGet() > this.maxPooledDeflaters) {
+			this.pooledDeflaters.decrementAndGet();
+			deflater.end();
+			return;
+		}
+
+		deflater.reset();
+		(gzip ? this.gzipDeflaters : this.deflateDeflaters).add(deflater);
+	}
+
+	private synchronized byte[] getCached(CacheKey key) {
+		return this.cache.get(key);
+	}
+
+	private synchronized void putCached(CacheKey key, byte[] compressed) {
+		if (compressed.length + CACHE_ENTRY_OVERHEAD > this.maxCacheSize) {
+			return;
+		}
+
+		byte[] previous = this.cache.put(key, compressed);
+		if (previous != null) {
+			this.cacheSize -= previous.length + CACHE_ENTRY_OVERHEAD;
+		}
+
+		this.cacheSize += compressed.length + CACHE_ENTRY_OVERHEAD;
+
+		// Evict least recently used entries
+		Iterator<Map.Entry<CacheKey, byte[]>> iterator = this.cache.entrySet().iterator();
+		while (this.cacheSize > this.maxCacheSize && iterator.hasNext()) {
+			this.cacheSize -= iterator.next().getValue().length + CACHE_ENTRY_OVERHEAD;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Key of compressed content in cache, the same content is cached separately for every coding
+	 */
+	private static final class CacheKey {
+
+		private final Object key;
+		private final String encoding;
+
+		private CacheKey(Object key, String encoding) {
+			this.key = key;
+			this.encoding = encoding;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey other = (CacheKey) o;
+			return this.key.equals(other.key) && this.encoding.equals(other.encoding);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.key, this.encoding);
+		}
+	}
+}
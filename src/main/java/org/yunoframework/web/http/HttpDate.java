@@ -0,0 +1,62 @@
+package org.yunoframework.web.http;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Cache of Date header sent in every response. Date has precision of one second,
+ * so it's formatted at most once per second and all responses sent in this second share it's pre-encoded bytes.
+ * It's thread safe, DateTimeFormatter is immutable and cached value is replaced atomically
+ */
+public final class HttpDate {
+
+	private static final DateTimeFormatter FORMAT = DateTimeFormatter
+			.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+			.withZone(ZoneOffset.UTC);
+
+	private static volatile Cached cached = new Cached(-1, new byte[0]);
+
+	private HttpDate() {
+	}
+
+	/**
+	 * Returns current date formatted as in HTTP headers (e. g. "Sat, 17 Oct 2026 04:09:27 GMT")
+	 * @return current date formatted as in HTTP headers
+	 */
+	public static String now() {
+		return format(System.currentTimeMillis() / 1000);
+	}
+
+	/**
+	 * Returns pre-encoded Date header with current date, including "\r\n" at the end. It must not be modified
+	 * @return pre-encoded Date header
+	 */
+	static byte[] header() {
+		long second = System.currentTimeMillis() / 1000;
+		Cached current = cached;
+		if (current.second != second) {
+			current = new Cached(second, ("Date: " + format(second) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			cached = current;
+		}
+
+		return current.header;
+	}
+
+	private static String format(long second) {
+		return FORMAT.format(Instant.ofEpochSecond(second));
+	}
+
+	private static final class Cached {
+
+		private final long second;
+		private final byte[] header;
+
+		private Cached(long second, byte[] header) {
+			this.second = second;
+			this.header = header;
+		}
+	}
+}
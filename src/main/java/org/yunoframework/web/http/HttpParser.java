@@ -6,91 +6,302 @@ import org.yunoframework.web.data.Request;
 import org.yunoframework.web.data.Response;
 import org.yunoframework.web.Yuno;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class HttpParser {
 
-	public static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
-	private static final byte[] BODY_PREFIX = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] SERVER = ("Server: Yuno/" + Yuno.VERSION + "\r\n").getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONNECTION_KEEP_ALIVE = "Connection: keep-alive\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONNECTION_CLOSE = "Connection: close\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRANSFER_ENCODING_CHUNKED = "Transfer-Encoding: chunked\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HTTP_1_1 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII);
+
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+	private static final byte[][] METHOD_NAMES = new byte[METHODS.length][];
+	private static final int INITIAL_HEADERS = 16;
+
+	// States of request parser
+	private static final int METHOD = 0;
+	private static final int PATH = 1;
+	private static final int QUERY = 2;
+	private static final int VERSION = 3;
+	private static final int LINE_END = 4;
+	private static final int HEADER_START = 5;
+	private static final int HEADER_NAME = 6;
+	private static final int HEADER_VALUE_START = 7;
+	private static final int HEADER_VALUE = 8;
+	private static final int HEADERS_END = 9;
+	private static final int BODY = 10;
 
 	static {
-		DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("GMT"));
+		for (int i = 0; i < METHODS.length; i++) {
+			METHOD_NAMES[i] = METHODS[i].name().getBytes(StandardCharsets.US_ASCII);
+		}
 	}
 
 	/**
-	 * Parses HTTP request
-	 * @param rawRequest HTTP request as byte array
+	 * Parses HTTP request. Request line and headers are parsed by state machine directly from bytes of buffer,
+	 * only offsets of them are recorded. Strings are created when they're requested for the first time {@see RawRequest}
+	 * @param rawRequest HTTP request in buffer, from position 0 to end of request. Position of buffer is not changed
 	 * @return Request data, null if raw request is malformed
 	 */
-	public static Request parseRequest(byte[] rawRequest) {
+	public static Request parseRequest(ByteBuffer rawRequest) {
 		try {
-			int bodyPosition = findPattern(rawRequest, BODY_PREFIX, 0, rawRequest.length, false);
-			String request = bodyPosition == -1 ? new String(rawRequest) : new String(rawRequest, 0, bodyPosition);
-			String[] lines = request.split("\r\n");
-
-			String[] handshake = lines[0].split(" ");
+			int limit = rawRequest.limit();
+			int state = METHOD;
+
+			HttpMethod method = null;
+			int pathStart = 0;
+			int pathEnd = 0;
+			int queryStart = -1;
+			int queryEnd = -1;
+			int versionStart = 0;
+
+			int[] headers = new int[INITIAL_HEADERS * 4];
+			int headerCount = 0;
+
+			int position = 0;
+			while (state != BODY && position < limit) {
+				byte b = rawRequest.get(position);
+				switch (state) {
+					case METHOD:
+						if (b == ' ') {
+							method = findMethod(rawRequest, position);
+							if (method == null) {
+								return failed(HttpStatus.BAD_REQUEST);
+							}
+
+							pathStart = position + 1;
+							state = PATH;
+						}
+						else if (b == '\r' || b == '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+						break;
+					case PATH:
+					case QUERY:
+						if (b == '?' && state == PATH) {
+							pathEnd = position;
+							queryStart = position + 1;
+							state = QUERY;
+						}
+						else if (b == ' ') {
+							if (state == PATH) {
+								pathEnd = position;
+							}
+							else {
+								queryEnd = position;
+							}
+
+							versionStart = position + 1;
+							state = VERSION;
+						}
+						else if (b == '\r' || b == '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+						break;
+					case VERSION:
+						if (b == '\r') {
+							if (!isHttp11(rawRequest, versionStart, position)) {
+								return failed(HttpStatus.HTTP_VERSION_NOT_SUPPORTED);
+							}
+
+							state = LINE_END;
+						}
+						break;
+					case LINE_END:
+						if (b != '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+
+						state = HEADER_START;
+						break;
+					case HEADER_START:
+						if (b == '\r') {
+							state = HEADERS_END;
+							break;
+						}
+
+						if (b == ':' || b == ' ' || b == '\t' || b == '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+
+						if (headerCount * 4 == headers.length) {
+							headers = Arrays.copyOf(headers, headers.length * 2);
+						}
+
+						headers[headerCount * 4] = position;
+						state = HEADER_NAME;
+						break;
+					case HEADER_NAME:
+						if (b == ':') {
+							headers[headerCount * 4 + 1] = position;
+							state = HEADER_VALUE_START;
+						}
+						else if (b == '\r' || b == '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+						break;
+					case HEADER_VALUE_START:
+						if (b == ' ' || b == '\t') {
+							break;
+						}
+
+						headers[headerCount * 4 + 2] = position;
+						state = HEADER_VALUE;
+						continue; // Byte is part of value, let's check it again
+					case HEADER_VALUE: {
+						// Value can't contain CR, so let's jump to it
+						int lineEnd = ByteSearch.indexOfCr(rawRequest, position, limit);
+						if (lineEnd == -1) {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+
+						int valueEnd = lineEnd;
+						while (valueEnd > headers[headerCount * 4 + 2] &&
+								(rawRequest.get(valueEnd - 1) == ' ' || rawRequest.get(valueEnd - 1) == '\t')) {
+							valueEnd--; // Trailing whitespaces are not part of value
+						}
+
+						headers[headerCount * 4 + 3] = valueEnd;
+						headerCount++;
+						position = lineEnd;
+						state = LINE_END;
+						break;
+					}
+					case HEADERS_END:
+						if (b != '\n') {
+							return failed(HttpStatus.BAD_REQUEST);
+						}
+
+						state = BODY;
+						break;
+				}
 
-			HttpMethod method = HttpMethod.getByName(handshake[0]);
-			if (method == null) {
-				return new Request(HttpStatus.BAD_REQUEST,
-						null, null, null, null, null, null);
+				position++;
 			}
 
-			if (!handshake[2].equalsIgnoreCase("HTTP/1.1")) {
-				return new Request(HttpStatus.HTTP_VERSION_NOT_SUPPORTED,
-						null, null, null, null, null, null);
+			if (state != BODY) {
+				return failed(HttpStatus.BAD_REQUEST);
 			}
 
-			String[] endpoint = handshake[1].split("\\?");
-			String path = endpoint[0];
-			Map<String, String> params = endpoint.length == 1 ? new CaseInsensitiveMap<>() : parseParams(endpoint[1]);
-			Map<String, String> headers = parseHeaders(lines, 1);
+			RawRequest raw = new RawRequest(rawRequest, method, pathStart, pathEnd, queryStart, queryEnd,
+					headers, headerCount, position, limit);
+			return new Request(raw);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return failed(HttpStatus.BAD_REQUEST);
+		}
+	}
 
-			byte[] rawContent = new byte[bodyPosition == -1 ? 0 : (rawRequest.length - bodyPosition)];
-			if (bodyPosition != -1) {
-				System.arraycopy(rawRequest, bodyPosition, rawContent, 0, rawRequest.length - bodyPosition);
-			}
+	/**
+	 * Parses body of request according to it's Content-Type, it's called by {@see Request#body()} when body is requested for the first time
+	 * @param contentType Content-Type header of request, null if request does not have it
+	 * @param content raw content of request
+	 * @return Map<String, String> for x-www-form-urlencoded body, Map<String, MultipartEntry> for multipart/form-data body,
+	 *         given content for other types, null if content is empty
+	 * @throws IllegalStateException if body is malformed
+	 */
+	public static Object parseBody(String contentType, byte[] content) throws IllegalStateException {
+		if (content.length == 0) {
+			return null;
+		}
 
-			String contentType = headers.get("Content-Type");
-			Object body = null;
-			if (bodyPosition != -1 && contentType != null && contentType.equalsIgnoreCase("application/x-www-form-urlencoded")) {
-				body = parseParams(new String(rawContent));
-			}
-			else if (bodyPosition != -1 && contentType != null && contentType.contains("multipart/form-data")) {
-				body = parseMultipart(contentType, rawContent);
-			}
-			else if (bodyPosition != -1) {
-				body = rawContent;
+		if (contentType != null && contentType.equalsIgnoreCase("application/x-www-form-urlencoded")) {
+			try {
+				return parseParams(new String(content, StandardCharsets.UTF_8));
+			} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+				throw new IllegalStateException("malformed x-www-form-urlencoded body", e);
 			}
+		}
 
-			return new Request(HttpStatus.OK, method, path, params, headers, rawContent, body);
-		} catch (Exception e) {
-			e.printStackTrace();
-			return new Request(HttpStatus.BAD_REQUEST,
-					null, null, null, null, null, null);
+		if (contentType != null && contentType.contains("multipart/form-data")) {
+			return parseMultipart(contentType, content);
 		}
+
+		return content;
 	}
 
 	/**
 	 * Converts parameters as String to <code>Map<ParameterName, ParameterValue></code>
 	 * @param raw parameters as String e. g. "foo=bar&abc=def", without "?" at the beginning
-	 * @return Map with parsed parameters
+	 * @return Map with parsed parameters, parameter without "=" has empty value
+	 * @throws UnsupportedEncodingException never, UTF-8 is always supported
 	 */
-	private static Map<String, String> parseParams(String raw) throws UnsupportedEncodingException {
+	public static Map<String, String> parseParams(String raw) throws UnsupportedEncodingException {
 		Map<String, String> params = new CaseInsensitiveMap<>();
-		String[] rawParams = raw.split("&");
-		for (String param : rawParams) {
-			String[] split = param.split("=");
-			params.put(URLDecoder.decode(split[0], "UTF-8"), URLDecoder.decode(split[1]));
+		int start = 0;
+		while (start < raw.length()) {
+			int end = raw.indexOf('&', start);
+			end = end == -1 ? raw.length() : end;
+
+			int separator = raw.indexOf('=', start);
+			if (separator == -1 || separator > end) {
+				separator = end;
+			}
+
+			if (separator > start) {
+				String value = separator == end ? "" : raw.substring(separator + 1, end);
+				params.put(URLDecoder.decode(raw.substring(start, separator), "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+			}
+
+			start = end + 1;
 		}
 
 		return params;
 	}
 
+	private static Request failed(HttpStatus status) {
+		return new Request(status, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Searches for method which name is placed in buffer before given position, name is case insensitive
+	 * @return found method, null if method is unknown
+	 */
+	private static HttpMethod findMethod(ByteBuffer buffer, int end) {
+		for (int i = 0; i < METHODS.length; i++) {
+			if (equalsIgnoreCase(buffer, 0, end, METHOD_NAMES[i])) {
+				return METHODS[i];
+			}
+		}
+
+		return null;
+	}
+
+	private static boolean isHttp11(ByteBuffer buffer, int start, int end) {
+		return equalsIgnoreCase(buffer, start, end, HTTP_1_1);
+	}
+
+	/**
+	 * Compares part of buffer with given upper case ASCII bytes, ignoring case
+	 */
+	private static boolean equalsIgnoreCase(ByteBuffer buffer, int start, int end, byte[] upperCase) {
+		if (end - start != upperCase.length) {
+			return false;
+		}
+
+		for (int i = 0; i < upperCase.length; i++) {
+			byte b = buffer.get(start + i);
+			if (b >= 'a' && b <= 'z') {
+				b -= 'a' - 'A';
+			}
+
+			if (b != upperCase[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	/**
 	 * Parse headers from HTTP request given as String to to <code>Map<HeaderName, HeaderValue></code>
 	 * It stop scanning when found first line without ": "
@@ -98,7 +309,7 @@ public class HttpParser {
 	 * @param startLine from which line will search for headers
 	 * @return Map with parser parameters
 	 */
-	private static Map<String, String> parseHeaders(String[] headerLines, int startLine) {
+	static Map<String, String> parseHeaders(String[] headerLines, int startLine) {
 		Map<String, String> headers = new CaseInsensitiveMap<>();
 		for (int i = startLine; i < headerLines.length; i++) {
 			String currentLine = headerLines[i];
@@ -114,65 +325,20 @@ public class HttpParser {
 	}
 
 	/**
-	 * Parses multipart/form-data request's body
+	 * Parses multipart/form-data request's body which is already in memory, entries are kept in memory too
 	 * @param contentType Content-Type parameter of request
 	 * @param rawContent request's body as byte array
 	 * @return Map with multipart request entries, with it's name as key
 	 */
 	private static Map<String, MultipartEntry> parseMultipart(String contentType, byte[] rawContent) {
-		String rawBoundary = parseHeaderParameters(contentType).get("boundary");
-		if (rawBoundary == null) {
-			throw new IllegalStateException("boundary not found (" + contentType + ")");
-		}
-
-		byte[] boundary = ("--" + rawBoundary + "\r\n").getBytes(StandardCharsets.UTF_8);
-
-		Map<String, MultipartEntry> entries = new CaseInsensitiveMap<>();
-		for (int i = 0; i < rawContent.length; i++) {
-			int start = findPattern(rawContent, boundary, i, rawContent.length, false);
-			if (start == -1) {
-				continue; // Entry does not start here, let's check next byte
-			}
-
-			int end = findPattern(rawContent, boundary, start, rawContent.length, true);
-			if (end == -1) {
-				end = rawContent.length - boundary.length - 4; // Cut additional "--" from closing boundary and "\r\n"
-			}
-
-			int bodyStart = findPattern(rawContent, BODY_PREFIX, start, end, false);
-			int headersLength = bodyStart - start - 2; // Cut "\r\n"
-
-			boolean needCut = rawContent[end - 1] == 0x0A && rawContent[end - 2] == 0x0D; // Check if body ends with "\r\n"
-			byte[] body = new byte[end - bodyStart - (needCut ? 2 : 0)]; // If body ends with "\r\n" we want to cut it
-			System.arraycopy(rawContent, bodyStart, body, 0, body.length);
-
-			String rawHeaders = new String(rawContent, start, headersLength);
-			Map<String, String> headers = parseHeaders(rawHeaders.split("\r\n"), 0);
-			String contentDisposition = headers.get("Content-Disposition");
-
-			if (contentDisposition == null) {
-				throw new IllegalStateException("missing Content-Disposition header in multipart entry");
-			}
-
-			Map<String, String> dispositionParameters = parseHeaderParameters(contentDisposition);
-			if (!dispositionParameters.containsKey("name")) {
-				throw new IllegalStateException("missing name parameter in Content-Disposition header");
-			}
-
-			entries.put(dispositionParameters.get("name"),
-					new MultipartEntry(
-						dispositionParameters.get("name"),
-						dispositionParameters.get("filename"),
-						contentDisposition,
-						headers.get("Content-Type"),
-						body
-					)
-			);
-
-			i = end - 1; // Jump to ending of current entry
+		MultipartDecoder decoder = MultipartDecoder.forContentType(contentType, Long.MAX_VALUE);
+		try {
+			decoder.decode(ByteBuffer.wrap(rawContent));
+		} catch (IOException e) {
+			throw new IllegalStateException("Entries kept in memory can't throw IOException", e);
 		}
 
-		return entries;
+		return decoder.finish();
 	}
 
 	/**
@@ -180,7 +346,7 @@ public class HttpParser {
 	 * @param header header to parse
 	 * @return parsed parameters
 	 */
-	private static Map<String, String> parseHeaderParameters(String header) {
+	static Map<String, String> parseHeaderParameters(String header) {
 		Map<String, String> parameters = new CaseInsensitiveMap<>();
 		header = header.replace("; ", ";");
 		for (String parameter : header.split(";")) {
@@ -196,69 +362,98 @@ public class HttpParser {
 	}
 
 	/**
-	 * Serialize HTTP response to byte[]
-	 * @param responseBuilder empty StringBuilder, it should be cached response builder from {@see RequestHandlerThread}
+	 * Serializes status line and headers of HTTP response as ASCII directly into given buffer, content is not serialized,
+	 * it should be written from it's own buffer. Status line, Server, Date and Connection headers are copied from pre-encoded bytes,
+	 * Server, Date, Content-Length and Transfer-Encoding headers set by handler are ignored
 	 * @param response HTTP response
-	 * @return serialized response as byte array
+	 * @param target buffer to write, headers are written from it's position
+	 * @throws BufferOverflowException when headers don't fit in buffer, caller should try again with bigger one
 	 */
-	public static byte[] serializeResponse(StringBuilder responseBuilder, Response response) {
-		prepareResponse(response);
+	public static void serializeHeaders(Response response, ByteBuffer target) throws BufferOverflowException {
+		serializeHeaders(response, response.isChunked() ? -1 : response.contentLength(), target);
+	}
 
-		responseBuilder.append("HTTP/1.1 ").append(response.status().getMessage()).append("\r\n");
+	/**
+	 * Serializes status line and headers of HTTP response as ASCII directly into given buffer, with given Content-Length.
+	 * It's used when content is serialized by caller, so response does not know it's length {@see #serializeHeaders(Response, ByteBuffer)}.
+	 * Responses with 1xx and 204 (No Content) statuses are sent without Content-Length and Transfer-Encoding (RFC 7230, section 3.3.2),
+	 * 304 (Not Modified) has Content-Length only if length of content is known
+	 * @param response HTTP response
+	 * @param contentLength length of content, -1 if content is sent with chunked transfer encoding
+	 * @param target buffer to write, headers are written from it's position
+	 * @throws BufferOverflowException when headers don't fit in buffer, caller should try again with bigger one
+	 */
+	public static void serializeHeaders(Response response, long contentLength, ByteBuffer target) throws BufferOverflowException {
+		target.put(response.status().statusLine());
+		target.put(SERVER);
+		target.put(HttpDate.header());
 
+		byte[] connection = CONNECTION_KEEP_ALIVE;
 		for (Map.Entry<String, String> header : response.headers().entrySet()) {
-			responseBuilder.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+			String name = header.getKey();
+			if (name.equalsIgnoreCase("Server") || name.equalsIgnoreCase("Date") || name.equalsIgnoreCase("Content-Length") ||
+					name.equalsIgnoreCase("Transfer-Encoding")) {
+				continue;
+			}
+
+			if (name.equalsIgnoreCase("Connection") && header.getValue().equalsIgnoreCase("close")) {
+				connection = CONNECTION_CLOSE;
+				continue;
+			}
+
+			if (name.equalsIgnoreCase("Connection") && header.getValue().equalsIgnoreCase("keep-alive")) {
+				continue;
+			}
+
+			putAscii(target, name);
+			target.put((byte) ':').put((byte) ' ');
+			putAscii(target, header.getValue());
+			target.put((byte) '\r').put((byte) '\n');
 		}
-		responseBuilder.append("\n");
 
-		byte[] headersBytes = responseBuilder.toString().getBytes(StandardCharsets.UTF_8);
-		byte[] buffer = new byte[headersBytes.length + response.content().length];
+		// Response which never has content is not framed, 304 (Not Modified) can tell length of content which would be sent to GET
+		HttpStatus status = response.status();
+		boolean framed = status.allowsContent() || (status == HttpStatus.NOT_MODIFIED && contentLength > 0);
+		if (framed && contentLength < 0) {
+			target.put(TRANSFER_ENCODING_CHUNKED);
+		}
+		else if (framed) {
+			target.put(CONTENT_LENGTH);
+			putNumber(target, contentLength);
+			target.put((byte) '\r').put((byte) '\n');
+		}
 
-		System.arraycopy(headersBytes, 0, buffer, 0, headersBytes.length);
-		System.arraycopy(response.content(), 0, buffer, headersBytes.length, response.content().length);
-		return buffer;
+		target.put(connection);
+		target.put((byte) '\r').put((byte) '\n');
 	}
 
 	/**
-	 * Prepared response to send to client, sets required headers to HTTP response
-	 * @param response response which you have to prepare to send
+	 * Writes String to buffer, characters are written as single bytes until first non-ASCII character, rest of String is encoded as UTF-8
 	 */
-	private static void prepareResponse(Response response) {
-		response.setHeader("Server", "Yuno/" + Yuno.VERSION);
-		response.setHeader("Date", HttpParser.DATE_FORMAT.format(new Date()));
-		response.setHeader("Content-Length", String.valueOf(response.content().length));
-
-		// We won't override "Connection: close"
-		if (response.header("Connection") == null) {
-			response.setHeader("Connection", "keep-alive");
+	private static void putAscii(ByteBuffer target, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c >= 0x80) {
+				target.put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+
+			target.put((byte) c);
 		}
 	}
 
 	/**
-	 * Searches for pattern in given array, returns first position where pattern occurs in array
-	 * @param array array to search in
-	 * @param pattern pattern to find
-	 * @param offset position from which to look for pattern
-	 * @param limit position to which to look for pattern
-	 * @param findStartPos if true will return index of first pattern's byte, else fire byte after pattern
-	 * @return found position, -1 if not found
+	 * Writes decimal digits of not negative number to buffer
 	 */
-	private static int findPattern(byte[] array, byte[] pattern, int offset, int limit, boolean findStartPos) {
-		for (int i = offset; i < limit - pattern.length; i++) {
-
-			boolean error = false;
-			for (int j = 0; j < pattern.length; j++) {
-				if (array[i + j] != pattern[j]) {
-					error = true;
-					break;
-				}
-			}
+	private static void putNumber(ByteBuffer target, long value) {
+		long divisor = 1;
+		while (divisor <= value / 10) {
+			divisor *= 10;
+		}
 
-			if (!error) {
-				return findStartPos ? i : (i + pattern.length);
-			}
+		for (; divisor > 0; divisor /= 10) {
+			target.put((byte) ('0' + (value / divisor) % 10));
 		}
-		return -1;
 	}
 
 	private static void dump(byte[] a) {
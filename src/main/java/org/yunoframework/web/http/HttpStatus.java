@@ -1,5 +1,7 @@
 package org.yunoframework.web.http;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Enumeration of HTTP statuses
  */
@@ -86,11 +88,13 @@ public enum HttpStatus {
 	private final int code;
 	private final HttpStatusType type;
 	private final String message;
+	private final byte[] statusLine;
 
 	HttpStatus(int code, String message) {
 		this.code = code;
 		this.type = HttpStatusType.typeOf(this);
 		this.message = code + " " + message;
+		this.statusLine = ("HTTP/1.1 " + this.message + "\r\n").getBytes(StandardCharsets.US_ASCII);
 	}
 
 	/**
@@ -130,4 +134,20 @@ public enum HttpStatus {
 	public String getMessage() {
 		return this.message;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Checks if response with this status can have content, responses with 1xx, 204 (No Content) and 304 (Not Modified) never have it
+	 * @return true if response with this status can have content
+	 */
+	public boolean allowsContent() {
+		return this.type != HttpStatusType.INFORMATIONAL && this != NO_CONTENT && this != NOT_MODIFIED;
+	}
+
+	/**
+	 * Returns pre-encoded status line of response with this status (e. g. "HTTP/1.1 200 OK\r\n"), it must not be modified
+	 * @return pre-encoded status line
+	 */
+	byte[] statusLine() {
+		return this.statusLine;
+	}
+}
@@ -0,0 +1,208 @@
+package org.yunoframework.web.http;
+
+import com.jsoniter.JsonIterator;
+import com.jsoniter.JsonIteratorPool;
+import com.jsoniter.any.Any;
+import com.jsoniter.output.EncodingMode;
+import com.jsoniter.output.JsonStream;
+import com.jsoniter.output.JsonStreamPool;
+import com.jsoniter.spi.DecodingMode;
+import com.jsoniter.spi.JsonException;
+import com.jsoniter.spi.Slice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Encoding and decoding of JSON with jsoniter. Streams and iterators are borrowed from jsoniter's pools,
+ * so JSON is written directly to target without intermediate String and decoded directly from received bytes
+ */
+public final class Json {
+
+	/**
+	 * Maximum size of per-thread array to which JSON is copied from direct buffers, bigger JSON is copied to new array
+	 */
+	private static final int MAX_SCRATCH_SIZE = 1024 * 64;
+
+	private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1024 * 4]);
+
+	/**
+	 * Whether decoded object of class may contain lazy {@see Any}, it keeps reference to input array instead of copying values
+	 */
+	private static final ClassValue<Boolean> REFERS_INPUT = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> clazz) {
+			return refersInput(clazz, new HashSet<>());
+		}
+	};
+
+	private Json() {
+	}
+
+	/**
+	 * Serializes object to JSON
+	 * @param object object to serialize
+	 * @return UTF-8 encoded JSON
+	 * @throws JsonException when object can't be serialized
+	 */
+	public static byte[] encode(Object object) throws JsonException {
+		JsonStream stream = JsonStreamPool.borrowJsonStream();
+		try {
+			stream.reset(null);
+			stream.writeVal(object);
+			Slice buffer = stream.buffer();
+			return Arrays.copyOfRange(buffer.data(), buffer.head(), buffer.tail());
+		} catch (IOException e) {
+			throw new JsonException(e);
+		} finally {
+			JsonStreamPool.returnJsonStream(stream);
+		}
+	}
+
+	/**
+	 * Serializes object to JSON and writes it to given stream, stream is flushed but not closed
+	 * @param object object to serialize
+	 * @param output stream to which UTF-8 encoded JSON is written
+	 * @throws IOException when stream can't be written
+	 * @throws JsonException when object can't be serialized
+	 */
+	public static void write(Object object, OutputStream output) throws IOException, JsonException {
+		JsonStream stream = JsonStreamPool.borrowJsonStream();
+		try {
+			stream.reset(output);
+			stream.writeVal(object);
+			stream.flush();
+		} finally {
+			stream.reset(null);
+			JsonStreamPool.returnJsonStream(stream);
+		}
+	}
+
+	/**
+	 * Deserializes JSON to object of given class, JSON is decoded in place if buffer is backed by array.
+	 * If class is or contains {@see Any}, JSON is copied, because lazy Any refers to input after decoding
+	 * @param json buffer with UTF-8 encoded JSON from position to limit, it's position is not changed
+	 * @param clazz class of object
+	 * @param <T> type of object
+	 * @return deserialized object
+	 * @throws JsonException when JSON is malformed or it does not match class
+	 */
+	public static <T> T decode(ByteBuffer json, Class<T> clazz) throws JsonException {
+		int length = json.remaining();
+		byte[] data;
+		int head;
+		if (REFERS_INPUT.get(clazz)) {
+			// Lazy Any reads input when it's accessed, so it gets own copy which is not changed by next request
+			data = new byte[length];
+			head = 0;
+			json.duplicate().get(data, 0, length);
+		}
+		else if (json.hasArray()) {
+			data = json.array();
+			head = json.arrayOffset() + json.position();
+		}
+		else {
+			// Decoded object does not refer to input, so scratch array can be reused by next request
+			data = length <= MAX_SCRATCH_SIZE ? scratch(length) : new byte[length];
+			head = 0;
+			json.duplicate().get(data, 0, length);
+		}
+
+		JsonIterator iterator = JsonIteratorPool.borrowJsonIterator();
+		try {
+			iterator.reset(data, head, head + length);
+			return iterator.read(clazz);
+		} catch (IOException e) {
+			throw new JsonException(e);
+		} finally {
+			JsonIteratorPool.returnJsonIterator(iterator);
+		}
+	}
+
+	/**
+	 * Switches jsoniter to static codegen mode, encoders and decoders are not generated at runtime,
+	 * they must be generated at build time with jsoniter's StaticCodegen. It must be called before any JSON is processed
+	 */
+	public static void useStaticCodegen() {
+		JsonIterator.setMode(DecodingMode.STATIC_MODE);
+		JsonStream.setMode(EncodingMode.STATIC_MODE);
+	}
+
+	private static boolean refersInput(Type type, Set<Type> visited) {
+		if (!visited.add(type)) {
+			return false;
+		}
+
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parameterized = (ParameterizedType) type;
+			for (Type argument : parameterized.getActualTypeArguments()) {
+				if (refersInput(argument, visited)) {
+					return true;
+				}
+			}
+
+			return refersInput(parameterized.getRawType(), visited);
+		}
+
+		if (type instanceof GenericArrayType) {
+			return refersInput(((GenericArrayType) type).getGenericComponentType(), visited);
+		}
+
+		if (type instanceof WildcardType) {
+			for (Type bound : ((WildcardType) type).getUpperBounds()) {
+				if (refersInput(bound, visited)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		if (!(type instanceof Class)) {
+			return false; // Type variables are decoded as Object, to maps and lists
+		}
+
+		Class<?> clazz = (Class<?>) type;
+		if (Any.class.isAssignableFrom(clazz)) {
+			return true;
+		}
+
+		if (clazz.isArray()) {
+			return refersInput(clazz.getComponentType(), visited);
+		}
+
+		if (clazz.isPrimitive() || clazz.getName().startsWith("java.")) {
+			return false;
+		}
+
+		for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) && refersInput(field.getGenericType(), visited)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static byte[] scratch(int length) {
+		byte[] scratch = SCRATCH.get();
+		if (scratch.length < length) {
+			scratch = new byte[Math.min(MAX_SCRATCH_SIZE, Math.max(length, scratch.length * 2))];
+			SCRATCH.set(scratch);
+		}
+
+		return scratch;
+	}
+}
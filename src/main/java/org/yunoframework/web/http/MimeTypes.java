@@ -0,0 +1,48 @@
+package org.yunoframework.web.http;
+
+import org.apache.tika.Tika;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects MIME types of files. Types are resolved by file's extension and cached,
+ * content of file is sniffed only when extension is unknown
+ */
+public class MimeTypes {
+
+	public static final String DEFAULT_TYPE = "application/octet-stream";
+
+	private static final Tika TIKA = new Tika();
+	private static final Map<String, String> BY_EXTENSION = new ConcurrentHashMap<>();
+
+	/**
+	 * Detects MIME type of given file
+	 * @param file file to detect
+	 * @return detected MIME type, application/octet-stream if it's unknown
+	 * @throws IOException when file can't be read while sniffing it's content
+	 */
+	public static String detect(File file) throws IOException {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot != -1 && dot < name.length() - 1) {
+			String extension = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+			String cached = BY_EXTENSION.get(extension);
+			if (cached != null) {
+				return cached;
+			}
+
+			String type = TIKA.detect(name);
+			if (!DEFAULT_TYPE.equals(type)) {
+				BY_EXTENSION.put(extension, type);
+				return type;
+			}
+		}
+
+		// Tika reads only beginning of file to sniff it's type
+		return TIKA.detect(file);
+	}
+}
@@ -0,0 +1,308 @@
+package org.yunoframework.web.http;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+import org.yunoframework.web.data.MultipartEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streaming decoder of multipart/form-data body, it decodes body while it's received, chunk by chunk.
+ * Only bytes which can be part of boundary are kept between chunks, so memory used by decoder does not depend on size of body.
+ * Entries bigger than threshold are written to temporary files. It must be used by one thread at once
+ */
+public class MultipartDecoder {
+
+	private static final int WINDOW_SIZE = 1024 * 16;
+	private static final int MAX_HEADERS_SIZE = 1024 * 8;
+	private static final ByteSearch HEADERS_END = new ByteSearch("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+	// States of decoder
+	private static final int PREAMBLE = 0;
+	private static final int DELIMITER_END = 1;
+	private static final int HEADERS = 2;
+	private static final int BODY = 3;
+	private static final int EPILOGUE = 4;
+
+	private final ByteSearch delimiter;
+	private final long threshold;
+	private final Map<String, MultipartEntry> entries;
+
+	private final byte[] window;
+	private int start;
+	private int end;
+	private int state;
+
+	private String contentDisposition;
+	private Map<String, String> dispositionParameters;
+	private String contentType;
+
+	private byte[] memory;
+	private int memorySize;
+	private Path file;
+	private OutputStream fileStream;
+	private long size;
+
+	/**
+	 * Creates new decoder
+	 * @param boundary boundary from Content-Type header of request
+	 * @param threshold size in bytes above which entries are written to temporary files
+	 */
+	public MultipartDecoder(String boundary, long threshold) {
+		this.delimiter = new ByteSearch(("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII));
+		this.threshold = threshold;
+		this.entries = new CaseInsensitiveMap<>();
+		this.window = new byte[WINDOW_SIZE + MAX_HEADERS_SIZE + this.delimiter.length()];
+
+		// First boundary is not preceded by "\r\n", so let's pretend it is
+		this.window[0] = '\r';
+		this.window[1] = '\n';
+		this.end = 2;
+		this.state = PREAMBLE;
+	}
+
+	/**
+	 * Creates decoder for request with given Content-Type
+	 * @param contentType Content-Type header of request
+	 * @param threshold size in bytes above which entries are written to temporary files
+	 * @return new decoder, null if request is not multipart/form-data
+	 * @throws IllegalStateException when Content-Type does not contain boundary
+	 */
+	public static MultipartDecoder forContentType(String contentType, long threshold) throws IllegalStateException {
+		if (contentType == null || !contentType.toLowerCase().contains("multipart/form-data")) {
+			return null;
+		}
+
+		String boundary = HttpParser.parseHeaderParameters(contentType).get("boundary");
+		if (boundary == null || boundary.isEmpty()) {
+			throw new IllegalStateException("boundary not found (" + contentType + ")");
+		}
+
+		return new MultipartDecoder(boundary, threshold);
+	}
+
+	/**
+	 * Decodes next chunk of body, position of buffer is moved to it's limit
+	 * @param chunk next chunk of body
+	 * @throws IllegalStateException when body is malformed
+	 * @throws IOException when entry can't be written to temporary file
+	 */
+	public void decode(ByteBuffer chunk) throws IllegalStateException, IOException {
+		while (chunk.hasRemaining()) {
+			if (this.start > 0) {
+				System.arraycopy(this.window, this.start, this.window, 0, this.end - this.start);
+				this.end -= this.start;
+				this.start = 0;
+			}
+
+			if (this.end == this.window.length) {
+				throw new IllegalStateException("headers of multipart entry are too large");
+			}
+
+			int length = Math.min(chunk.remaining(), this.window.length - this.end);
+			chunk.get(this.window, this.end, length);
+			this.end += length;
+			this.process();
+		}
+	}
+
+	/**
+	 * Finishes decoding, it must be called after whole body was given to {@see #decode(ByteBuffer)}
+	 * @return decoded entries, with their names as keys
+	 * @throws IllegalStateException when body is not complete
+	 */
+	public Map<String, MultipartEntry> finish() throws IllegalStateException {
+		if (this.state != EPILOGUE) {
+			this.discard();
+			throw new IllegalStateException("multipart body is not complete");
+		}
+
+		return this.entries;
+	}
+
+	/**
+	 * Deletes temporary files of all decoded entries, it's called when decoding failed or request won't be handled
+	 */
+	public void discard() {
+		this.closeFile();
+		if (this.file != null) {
+			try {
+				Files.deleteIfExists(this.file);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			this.file = null;
+		}
+
+		for (MultipartEntry entry : this.entries.values()) {
+			entry.delete();
+		}
+
+		this.entries.clear();
+	}
+
+	private void process() throws IOException {
+		while (true) {
+			switch (this.state) {
+				case PREAMBLE: {
+					int index = this.delimiter.indexOf(this.window, this.start, this.end);
+					if (index == -1) {
+						this.start = Math.max(this.start, this.end - this.delimiter.length() + 1);
+						return;
+					}
+
+					this.start = index + this.delimiter.length();
+					this.state = DELIMITER_END;
+					break;
+				}
+				case DELIMITER_END:
+					if (this.end - this.start < 2) {
+						return;
+					}
+
+					if (this.window[this.start] == '-' && this.window[this.start + 1] == '-') {
+						this.state = EPILOGUE;
+					}
+					else if (this.window[this.start] == '\r' && this.window[this.start + 1] == '\n') {
+						this.state = HEADERS;
+					}
+					else {
+						throw new IllegalStateException("malformed multipart boundary");
+					}
+
+					this.start += 2;
+					break;
+				case HEADERS: {
+					// Entry without headers starts with empty line
+					int index = this.end - this.start >= 2 && this.window[this.start] == '\r' && this.window[this.start + 1] == '\n' ?
+							this.start : HEADERS_END.indexOf(this.window, this.start, this.end);
+					if (index == -1) {
+						if (this.end - this.start > MAX_HEADERS_SIZE) {
+							throw new IllegalStateException("headers of multipart entry are too large");
+						}
+
+						return;
+					}
+
+					this.startEntry(new String(this.window, this.start, index - this.start, StandardCharsets.UTF_8));
+					this.start = index == this.start ? index + 2 : index + HEADERS_END.length();
+					this.state = BODY;
+					break;
+				}
+				case BODY: {
+					int index = this.delimiter.indexOf(this.window, this.start, this.end);
+					if (index == -1) {
+						// Last bytes can be beginning of delimiter, they'll be checked again with next chunk
+						int safe = this.end - this.delimiter.length() + 1;
+						if (safe > this.start) {
+							this.write(this.start, safe);
+							this.start = safe;
+						}
+
+						return;
+					}
+
+					this.write(this.start, index);
+					this.finishEntry();
+					this.start = index + this.delimiter.length();
+					this.state = DELIMITER_END;
+					break;
+				}
+				case EPILOGUE:
+					this.start = this.end;
+					return;
+			}
+		}
+	}
+
+	private void startEntry(String rawHeaders) {
+		Map<String, String> headers = HttpParser.parseHeaders(rawHeaders.split("\r\n"), 0);
+		this.contentDisposition = headers.get("Content-Disposition");
+		if (this.contentDisposition == null) {
+			throw new IllegalStateException("missing Content-Disposition header in multipart entry");
+		}
+
+		this.dispositionParameters = HttpParser.parseHeaderParameters(this.contentDisposition);
+		if (!this.dispositionParameters.containsKey("name")) {
+			throw new IllegalStateException("missing name parameter in Content-Disposition header");
+		}
+
+		this.contentType = headers.get("Content-Type");
+		this.memorySize = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Appends bytes of window to body of current entry, it's moved to temporary file when it exceeds threshold
+	 */
+	private void write(int from, int to) throws IOException {
+		int length = to - from;
+		if (length == 0) {
+			return;
+		}
+
+		if (this.fileStream == null && this.size + length > this.threshold) {
+			this.file = Files.createTempFile("yuno-", ".part");
+			this.fileStream = Files.newOutputStream(this.file);
+			this.fileStream.write(this.memory == null ? new byte[0] : this.memory, 0, this.memorySize);
+			this.memorySize = 0;
+		}
+
+		if (this.fileStream != null) {
+			this.fileStream.write(this.window, from, length);
+		}
+		else {
+			if (this.memory == null || this.memory.length < this.memorySize + length) {
+				int capacity = (int) Math.min(this.threshold, Math.max((this.memorySize + length) * 2L, 1024));
+				this.memory = Arrays.copyOf(this.memory == null ? new byte[0] : this.memory, capacity);
+			}
+
+			System.arraycopy(this.window, from, this.memory, this.memorySize, length);
+			this.memorySize += length;
+		}
+
+		this.size += length;
+	}
+
+	private void finishEntry() throws IOException {
+		String name = this.dispositionParameters.get("name");
+		MultipartEntry entry;
+		if (this.fileStream != null) {
+			this.fileStream.close();
+			this.fileStream = null;
+			entry = new MultipartEntry(name, this.dispositionParameters.get("filename"), this.contentDisposition,
+					this.contentType, this.file, this.size);
+			this.file = null;
+		}
+		else {
+			entry = new MultipartEntry(name, this.dispositionParameters.get("filename"), this.contentDisposition,
+					this.contentType, this.memory == null ? new byte[0] : Arrays.copyOf(this.memory, this.memorySize));
+		}
+
+		MultipartEntry previous = this.entries.put(name, entry);
+		if (previous != null) {
+			previous.delete();
+		}
+	}
+
+	private void closeFile() {
+		if (this.fileStream == null) {
+			return;
+		}
+
+		try {
+			this.fileStream.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		this.fileStream = null;
+	}
+}
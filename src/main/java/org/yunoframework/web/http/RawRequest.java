@@ -0,0 +1,194 @@
+package org.yunoframework.web.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request parsed by {@see HttpParser} without copying it. It keeps only offsets of method, path, query, headers and body
+ * in receive buffer, Strings are created when they're requested for the first time.
+ * It's valid only while request is handled, after that receive buffer is given back to pool
+ */
+public class RawRequest {
+
+	private final ByteBuffer buffer;
+	private final HttpMethod method;
+
+	private final int pathStart;
+	private final int pathEnd;
+	private final int queryStart;
+	private final int queryEnd;
+
+	private final int[] headers;
+	private final int headerCount;
+	private final String[] headerValues;
+
+	private final int bodyStart;
+	private final int bodyEnd;
+
+	private String path;
+
+	/**
+	 * Creates new instance of RawRequest, it should be used by {@see HttpParser}
+	 * @param buffer receive buffer
+	 * @param method method of request
+	 * @param pathStart index of first byte of path
+	 * @param pathEnd index after last byte of path
+	 * @param queryStart index of first byte of query (after "?"), -1 if request does not have query
+	 * @param queryEnd index after last byte of query
+	 * @param headers offsets of headers, for every header: start of name, end of name, start of value, end of value
+	 * @param headerCount amount of headers
+	 * @param bodyStart index of first byte of body
+	 * @param bodyEnd index after last byte of body
+	 */
+	public RawRequest(ByteBuffer buffer, HttpMethod method, int pathStart, int pathEnd, int queryStart, int queryEnd,
+					  int[] headers, int headerCount, int bodyStart, int bodyEnd) {
+		this.buffer = buffer;
+		this.method = method;
+		this.pathStart = pathStart;
+		this.pathEnd = pathEnd;
+		this.queryStart = queryStart;
+		this.queryEnd = queryEnd;
+		this.headers = headers;
+		this.headerCount = headerCount;
+		this.headerValues = new String[headerCount];
+		this.bodyStart = bodyStart;
+		this.bodyEnd = bodyEnd;
+	}
+
+	/**
+	 * Returns method of request
+	 * @return method of request
+	 */
+	public HttpMethod method() {
+		return method;
+	}
+
+	/**
+	 * Returns path of request, without query
+	 * @return path of request, without query
+	 */
+	public String path() {
+		if (this.path == null) {
+			this.path = this.string(this.pathStart, this.pathEnd);
+		}
+
+		return this.path;
+	}
+
+	/**
+	 * Returns query of request, without "?" at the beginning
+	 * @return query of request, null if request does not have query
+	 */
+	public String query() {
+		return this.queryStart == -1 ? null : this.string(this.queryStart, this.queryEnd);
+	}
+
+	/**
+	 * Returns value of header with given name, name is case insensitive. Headers are compared without creating Strings.
+	 * If header occurs multiple times, last value is returned
+	 * @param name name of header
+	 * @return value of header, null if header does not exist
+	 */
+	public String header(String name) {
+		for (int i = this.headerCount - 1; i >= 0; i--) {
+			if (this.headerNameEquals(i, name)) {
+				return this.headerValue(i);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns amount of headers
+	 * @return amount of headers
+	 */
+	public int headerCount() {
+		return headerCount;
+	}
+
+	/**
+	 * Returns name of header with given index
+	 * @param index index of header
+	 * @return name of header
+	 */
+	public String headerName(int index) {
+		return this.string(this.headers[index * 4], this.headers[index * 4 + 1]);
+	}
+
+	/**
+	 * Returns value of header with given index
+	 * @param index index of header
+	 * @return value of header
+	 */
+	public String headerValue(int index) {
+		if (this.headerValues[index] == null) {
+			this.headerValues[index] = this.string(this.headers[index * 4 + 2], this.headers[index * 4 + 3]);
+		}
+
+		return this.headerValues[index];
+	}
+
+	/**
+	 * Returns receive buffer of request
+	 * @return receive buffer of request
+	 */
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns index of first byte of body in receive buffer
+	 * @return index of first byte of body in receive buffer
+	 */
+	public int bodyStart() {
+		return bodyStart;
+	}
+
+	/**
+	 * Returns length of body in bytes
+	 * @return length of body in bytes, 0 if request does not have body
+	 */
+	public int bodyLength() {
+		return this.bodyEnd - this.bodyStart;
+	}
+
+	private boolean headerNameEquals(int index, String name) {
+		int start = this.headers[index * 4];
+		int end = this.headers[index * 4 + 1];
+		if (end - start != name.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < name.length(); i++) {
+			if (toLowerCase(this.buffer.get(start + i)) != toLowerCase(name.charAt(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Creates String from part of receive buffer, ASCII is decoded directly, other bytes are decoded as UTF-8
+	 */
+	private String string(int start, int end) {
+		char[] chars = new char[end - start];
+		for (int i = start; i < end; i++) {
+			byte b = this.buffer.get(i);
+			if (b < 0) {
+				ByteBuffer slice = this.buffer.duplicate();
+				slice.limit(end).position(start);
+				return StandardCharsets.UTF_8.decode(slice).toString();
+			}
+
+			chars[i - start] = (char) b;
+		}
+
+		return new String(chars);
+	}
+
+	private static int toLowerCase(int c) {
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+}
@@ -0,0 +1,184 @@
+package org.yunoframework.web.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with log-linear buckets, like HdrHistogram.
+ * Every power of two of microseconds is split into {@see #SUB_BUCKETS} buckets, so recorded value is off by at most 12.5%.
+ * Histogram starts with one stripe of counts, like {@see java.util.concurrent.atomic.LongAdder} it gets more stripes only when threads
+ * record to it at the same time, so idle routes take little memory and busy ones rarely update the same cache line from different threads.
+ * Recording does not allocate anything, except when histogram gets more stripes
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Highest power of two of microseconds which is tracked (about 38 hours), longer durations are recorded in last bucket
+	 */
+	private static final int MAX_EXPONENT = 37;
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	/**
+	 * Amount of buckets, values below {@see #SUB_BUCKETS} have their own buckets, then every exponent has {@see #SUB_BUCKETS} buckets
+	 */
+	public static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	/**
+	 * Index of sum of recorded durations in stripe, it's kept after counts of buckets
+	 */
+	private static final int SUM = BUCKETS;
+
+	private static final int MAX_STRIPES = maxStripes();
+
+	private volatile AtomicLongArray[] stripes;
+
+	public Histogram() {
+		this.stripes = new AtomicLongArray[] {new AtomicLongArray(BUCKETS + 1)};
+	}
+
+	/**
+	 * Records duration
+	 * @param nanos duration in nanoseconds, negative duration is recorded as 0
+	 */
+	public void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		int bucket = bucketOf(nanos / 1000);
+		AtomicLongArray[] stripes = this.stripes;
+		AtomicLongArray stripe = stripes[stripe() & (stripes.length - 1)];
+		long count = stripe.get(bucket);
+		if (!stripe.compareAndSet(bucket, count, count + 1)) {
+			// Other thread recorded to the same stripe at the same time, histogram is contended so next recordings are spread more
+			this.grow(stripes);
+			stripe.getAndIncrement(bucket);
+		}
+
+		stripe.getAndAdd(SUM, nanos);
+	}
+
+	/**
+	 * Returns counts of buckets merged from all stripes, it's consistent only when nothing is recorded meanwhile
+	 * @return array with {@see #BUCKETS} counts, bounds of buckets are returned by {@see #upperBound(int)}
+	 */
+	public long[] snapshot() {
+		long[] snapshot = new long[BUCKETS];
+		for (AtomicLongArray stripe : this.stripes) {
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				snapshot[bucket] += stripe.get(bucket);
+			}
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Returns amount of recorded durations
+	 * @return amount of recorded durations
+	 */
+	public long count() {
+		long count = 0;
+		for (long bucket : this.snapshot()) {
+			count += bucket;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns sum of recorded durations
+	 * @return sum of recorded durations in nanoseconds
+	 */
+	public long sum() {
+		long sum = 0;
+		for (AtomicLongArray stripe : this.stripes) {
+			sum += stripe.get(SUM);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns duration below which given fraction of recorded durations is
+	 * @param quantile fraction of durations, between 0 and 1, e. g. 0.99 for 99th percentile
+	 * @return upper bound of bucket which contains quantile in nanoseconds, 0 if nothing is recorded
+	 */
+	public long quantile(double quantile) {
+		long[] snapshot = this.snapshot();
+		long count = 0;
+		for (long bucket : snapshot) {
+			count += bucket;
+		}
+
+		long rank = (long) Math.ceil(quantile * count);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += snapshot[bucket];
+			if (seen > 0 && seen >= rank) {
+				return upperBound(bucket) * 1000;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Returns index of bucket in which value is counted
+	 * @param micros value in microseconds
+	 * @return index of bucket
+	 */
+	static int bucketOf(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+
+		micros = Math.min(micros, MAX_VALUE);
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Returns exclusive upper bound of bucket
+	 * @param bucket index of bucket
+	 * @return lowest value in microseconds which is not counted in bucket
+	 */
+	public static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket + 1;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lower + (1L << shift);
+	}
+
+	/**
+	 * Doubles amount of stripes, recorded counts are kept in the same stripes
+	 * @param current stripes in which contention happened, nothing is done if they were grown by other thread meanwhile
+	 */
+	private synchronized void grow(AtomicLongArray[] current) {
+		if (this.stripes != current || current.length >= MAX_STRIPES) {
+			return;
+		}
+
+		AtomicLongArray[] grown = Arrays.copyOf(current, current.length * 2);
+		for (int i = current.length; i < grown.length; i++) {
+			grown[i] = new AtomicLongArray(BUCKETS + 1);
+		}
+
+		this.stripes = grown;
+	}
+
+	private static int stripe() {
+		// Ids of threads are sequential, so they're mixed before masking
+		long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return (int) (id >>> 32);
+	}
+
+	private static int maxStripes() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return Math.min(16, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+	}
+}
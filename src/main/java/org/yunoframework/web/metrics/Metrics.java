@@ -0,0 +1,287 @@
+package org.yunoframework.web.metrics;
+
+import org.yunoframework.web.http.HttpMethod;
+import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.routing.PathRoutes;
+import org.yunoframework.web.routing.RouteInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of server's metrics, it's enabled by {@see org.yunoframework.web.Yuno.Builder#metrics(boolean)}.
+ * Counters are striped {@see LongAdder} and latencies are recorded in {@see Histogram}s striped by contention, so recording rarely allocates
+ * and threads rarely contend for the same cache line. Metrics are exported in Prometheus text format {@see MetricsHandler}
+ */
+public class Metrics {
+
+	private static final HttpStatus[] STATUSES = HttpStatus.values();
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+
+	/**
+	 * Bounds of exported histogram buckets in seconds, they're approximated by buckets of {@see Histogram} which end below them
+	 */
+	private static final String[] EXPORTED_BOUNDS = {"0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1",
+			"0.25", "0.5", "1", "2.5", "5", "10"};
+
+	private final Map<RouteInfo, RouteMetrics> routes;
+	private final Map<PathRoutes, AtomicReferenceArray<RouteMetrics>> automatic;
+	private final RouteMetrics unmatched;
+	private final Histogram queueWait;
+	private final LongAdder acceptedConnections;
+	private final LongAdder rejectedConnections;
+	private final LongAdder bytesReceived;
+	private final LongAdder bytesSent;
+	private final List<Gauge> gauges;
+
+	public Metrics() {
+		this.routes = new ConcurrentHashMap<>();
+		this.automatic = new ConcurrentHashMap<>();
+		this.unmatched = new RouteMetrics("", "");
+		this.queueWait = new Histogram();
+		this.acceptedConnections = new LongAdder();
+		this.rejectedConnections = new LongAdder();
+		this.bytesReceived = new LongAdder();
+		this.bytesSent = new LongAdder();
+		this.gauges = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Records time of handling request, from start of handling to queuing it's response
+	 * @param route matched route, null if request didn't match any path
+	 * @param status status of response
+	 * @param nanos time of handling in nanoseconds
+	 */
+	public void recordRequest(RouteInfo route, HttpStatus status, long nanos) {
+		RouteMetrics metrics = route == null ? this.unmatched : this.routes.get(route);
+		if (metrics == null) {
+			metrics = this.routes.computeIfAbsent(route, key -> new RouteMetrics(key.getMethod().name(), key.getPath()));
+		}
+
+		metrics.histogram(status).record(nanos);
+	}
+
+	/**
+	 * Records time of handling request which matched path, but not any route of it's method.
+	 * Response to it is generated by Yuno, e. g. 204 to OPTIONS or 405, it's labeled with pattern of path
+	 * @param routes routes of matched path
+	 * @param method method of request
+	 * @param status status of response
+	 * @param nanos time of handling in nanoseconds
+	 */
+	public void recordRequest(PathRoutes routes, HttpMethod method, HttpStatus status, long nanos) {
+		AtomicReferenceArray<RouteMetrics> methods = this.automatic.get(routes);
+		if (methods == null) {
+			methods = this.automatic.computeIfAbsent(routes, key -> new AtomicReferenceArray<>(METHODS.length));
+		}
+
+		RouteMetrics metrics = methods.get(method.ordinal());
+		if (metrics == null) {
+			methods.compareAndSet(method.ordinal(), null, new RouteMetrics(method.name(), routes.getPath()));
+			metrics = methods.get(method.ordinal());
+		}
+
+		metrics.histogram(status).record(nanos);
+	}
+
+	/**
+	 * Records time which connection waited in queue of workers
+	 * @param nanos time of waiting in nanoseconds
+	 */
+	public void recordQueueWait(long nanos) {
+		this.queueWait.record(nanos);
+	}
+
+	/**
+	 * Counts accepted connection
+	 */
+	public void connectionAccepted() {
+		this.acceptedConnections.increment();
+	}
+
+	/**
+	 * Counts connection rejected because server was overloaded
+	 */
+	public void connectionRejected() {
+		this.rejectedConnections.increment();
+	}
+
+	/**
+	 * Counts bytes received from clients
+	 * @param bytes amount of received bytes
+	 */
+	public void bytesReceived(long bytes) {
+		this.bytesReceived.add(bytes);
+	}
+
+	/**
+	 * Counts bytes sent to clients
+	 * @param bytes amount of sent bytes
+	 */
+	public void bytesSent(long bytes) {
+		this.bytesSent.add(bytes);
+	}
+
+	/**
+	 * Registers gauge, it's value is read when metrics are exported
+	 * @param name name of metric, e. g. "yuno_connections_active"
+	 * @param help description of metric
+	 * @param value supplier of current value, it's called from thread which exports metrics
+	 */
+	public void gauge(String name, String help, LongSupplier value) {
+		this.gauges.add(new Gauge(name, help, value));
+	}
+
+	/**
+	 * Returns histogram of handling times of route's requests with given status
+	 * @param route route, null for requests which didn't match any route
+	 * @param status status of response
+	 * @return histogram of handling times, null if no request was recorded
+	 */
+	public Histogram getRequestHistogram(RouteInfo route, HttpStatus status) {
+		RouteMetrics metrics = route == null ? this.unmatched : this.routes.get(route);
+		return metrics == null ? null : metrics.histograms.get(status.ordinal());
+	}
+
+	/**
+	 * Returns histogram of times which connections waited in queue of workers
+	 * @return histogram of times which connections waited in queue of workers
+	 */
+	public Histogram getQueueWait() {
+		return queueWait;
+	}
+
+	/**
+	 * Exports all metrics in Prometheus text format (version 0.0.4)
+	 * @return metrics in Prometheus text format
+	 */
+	public String export() {
+		StringBuilder output = new StringBuilder(4096);
+
+		family(output, "yuno_request_duration_seconds", "Time from start of handling request to queuing it's response", "histogram");
+		this.exportRoute(output, this.unmatched);
+		for (RouteMetrics metrics : this.routes.values()) {
+			this.exportRoute(output, metrics);
+		}
+
+		for (AtomicReferenceArray<RouteMetrics> methods : this.automatic.values()) {
+			for (int i = 0; i < METHODS.length; i++) {
+				if (methods.get(i) != null) {
+					this.exportRoute(output, methods.get(i));
+				}
+			}
+		}
+
+		family(output, "yuno_queue_wait_seconds", "Time which connections waited in queue of workers", "histogram");
+		histogram(output, "yuno_queue_wait_seconds", "", this.queueWait);
+
+		counter(output, "yuno_connections_accepted_total", "Accepted connections", this.acceptedConnections.sum());
+		counter(output, "yuno_connections_rejected_total", "Connections rejected with 503 because workers were overloaded", this.rejectedConnections.sum());
+		counter(output, "yuno_received_bytes_total", "Bytes received from clients", this.bytesReceived.sum());
+		counter(output, "yuno_sent_bytes_total", "Bytes sent to clients", this.bytesSent.sum());
+
+		for (Gauge gauge : this.gauges) {
+			family(output, gauge.name, gauge.help, "gauge");
+			output.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+		}
+
+		return output.toString();
+	}
+
+	private void exportRoute(StringBuilder output, RouteMetrics metrics) {
+		for (int i = 0; i < STATUSES.length; i++) {
+			Histogram histogram = metrics.histograms.get(i);
+			if (histogram != null) {
+				String labels = "method=\"" + metrics.method + "\",route=\"" + escape(metrics.path) + "\",status=\"" + STATUSES[i].getCode() + "\",";
+				histogram(output, "yuno_request_duration_seconds", labels, histogram);
+			}
+		}
+	}
+
+	/**
+	 * Writes buckets, sum and count of histogram
+	 * @param labels labels of histogram, every label is followed by comma
+	 */
+	private static void histogram(StringBuilder output, String name, String labels, Histogram histogram) {
+		long[] snapshot = histogram.snapshot();
+		int bucket = 0;
+		long cumulative = 0;
+		for (String bound : EXPORTED_BOUNDS) {
+			long micros = (long) (Double.parseDouble(bound) * 1000 * 1000);
+			while (bucket < Histogram.BUCKETS && Histogram.upperBound(bucket) <= micros) {
+				cumulative += snapshot[bucket++];
+			}
+
+			output.append(name).append("_bucket{").append(labels).append("le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+		}
+
+		while (bucket < Histogram.BUCKETS) {
+			cumulative += snapshot[bucket++];
+		}
+
+		output.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+
+		String trimmed = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+		output.append(name).append("_sum").append(trimmed).append(' ').append(histogram.sum() / 1e9).append('\n');
+		output.append(name).append("_count").append(trimmed).append(' ').append(cumulative).append('\n');
+	}
+
+	private static void counter(StringBuilder output, String name, String help, long value) {
+		family(output, name, help, "counter");
+		output.append(name).append(' ').append(value).append('\n');
+	}
+
+	private static void family(StringBuilder output, String name, String help, String type) {
+		output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/**
+	 * Histograms of one route indexed by ordinal of status, they're created when status is recorded first time.
+	 * Method and path are labels of route, they're empty for requests which didn't match any path
+	 */
+	private static final class RouteMetrics {
+
+		private final String method;
+		private final String path;
+		private final AtomicReferenceArray<Histogram> histograms;
+
+		private RouteMetrics(String method, String path) {
+			this.method = method;
+			this.path = path;
+			this.histograms = new AtomicReferenceArray<>(STATUSES.length);
+		}
+
+		private Histogram histogram(HttpStatus status) {
+			Histogram histogram = this.histograms.get(status.ordinal());
+			if (histogram == null) {
+				this.histograms.compareAndSet(status.ordinal(), null, new Histogram());
+				histogram = this.histograms.get(status.ordinal());
+			}
+
+			return histogram;
+		}
+	}
+
+	private static final class Gauge {
+
+		private final String name;
+		private final String help;
+		private final LongSupplier value;
+
+		private Gauge(String name, String help, LongSupplier value) {
+			this.name = name;
+			this.help = help;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package org.yunoframework.web.metrics;
+
+import org.yunoframework.web.data.Request;
+import org.yunoframework.web.data.Response;
+import org.yunoframework.web.routing.Handler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handler which exports metrics in Prometheus text format, registered by {@see org.yunoframework.web.Yuno#metrics(String)}
+ */
+public class MetricsHandler implements Handler {
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final Metrics metrics;
+
+	/**
+	 * Creates new instance of MetricsHandler
+	 * @param metrics registry of metrics which will be exported
+	 */
+	public MetricsHandler(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void apply(Request request, Response response) {
+		response.binary(this.metrics.export().getBytes(StandardCharsets.UTF_8), CONTENT_TYPE);
+	}
+}
@@ -0,0 +1,24 @@
+package org.yunoframework.web.routing;
+
+import org.yunoframework.web.data.Request;
+import org.yunoframework.web.data.Response;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asynchronous handler of route, it lets worker thread handle next requests while response is prepared, e. g. by calls to other services.
+ * Response is sent by thread which completes returned stage, requests received later on the same connection are handled after it
+ *
+ * Example: <code>yuno.getAsync("/user", (request, response) -> client.fetchUser().thenAccept(response::json))</code>
+ */
+public interface AsyncHandler {
+
+	/**
+	 * This method will be called when user send request to endpoint associated with this handler
+	 * @param request object with data of user's request, it can be used until returned stage is completed
+	 * @param response object with response data, you have to modify it before returned stage is completed {@see Response}
+	 * @return stage which is completed when response is ready, it's result is ignored
+	 * @throws Exception if any exception is thrown from this method or stage is completed exceptionally, server will send Error 500 to HTTP client
+	 */
+	CompletionStage<?> apply(Request request, Response response) throws Exception;
+}
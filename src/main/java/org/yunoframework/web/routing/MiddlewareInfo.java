@@ -1,5 +1,7 @@
 package org.yunoframework.web.routing;
 
+import org.yunoframework.web.http.HttpMethod;
+
 /**
  * Keep information about middleware
  */
@@ -7,15 +9,55 @@ public class MiddlewareInfo {
 
 	private final Handler handler;
 	private final int priority;
+	private final String pathPrefix;
+	private final HttpMethod method;
 
 	/**
-	 * Creates instance of RouteInfo, it does not automatically register it do Yuno
+	 * Creates instance of MiddlewareInfo which applies to all routes, it does not automatically register it do Yuno
 	 * @param handler handler of middleware {@see Handler}
 	 * @param priority priority of middleware
 	 */
 	public MiddlewareInfo(Handler handler, int priority) {
+		this(handler, priority, null, null);
+	}
+
+	/**
+	 * Creates instance of MiddlewareInfo, it does not automatically register it do Yuno
+	 * @param handler handler of middleware {@see Handler}
+	 * @param priority priority of middleware
+	 * @param pathPrefix prefix of routes' paths to which middleware applies, e. g. "/admin" applies to "/admin" and "/admin/users/:id",
+	 *                   but not to "/administrator". Null if middleware applies to all paths
+	 * @param method method of routes to which middleware applies, null if it applies to all methods
+	 * @throws IllegalStateException when path prefix does not start with "/"
+	 */
+	public MiddlewareInfo(Handler handler, int priority, String pathPrefix, HttpMethod method) throws IllegalStateException {
+		if (pathPrefix != null && !pathPrefix.startsWith("/")) {
+			throw new IllegalStateException("Path prefix must start with \"/\" (" + pathPrefix + ")");
+		}
+
 		this.handler = handler;
 		this.priority = priority;
+		this.pathPrefix = pathPrefix == null || pathPrefix.equals("/") ? null : trimSlash(pathPrefix);
+		this.method = method;
+	}
+
+	/**
+	 * Checks if middleware applies to given route, path prefix must match whole segments of route's path
+	 * @param route registered route
+	 * @return true if middleware should be called before handler of route
+	 */
+	public boolean matches(RouteInfo route) {
+		if (this.method != null && this.method != route.getMethod()) {
+			return false;
+		}
+
+		if (this.pathPrefix == null) {
+			return true;
+		}
+
+		String path = route.getPath();
+		return path.regionMatches(true, 0, this.pathPrefix, 0, this.pathPrefix.length()) &&
+				(path.length() == this.pathPrefix.length() || path.charAt(this.pathPrefix.length()) == '/');
 	}
 
 	/**
@@ -33,4 +75,24 @@ public class MiddlewareInfo {
 	public int getPriority() {
 		return priority;
 	}
+
+	/**
+	 * Returns prefix of routes' paths to which middleware applies
+	 * @return prefix of paths without trailing slash, null if middleware applies to all paths
+	 */
+	public String getPathPrefix() {
+		return pathPrefix;
+	}
+
+	/**
+	 * Returns method of routes to which middleware applies
+	 * @return method of routes, null if middleware applies to all methods
+	 */
+	public HttpMethod getMethod() {
+		return method;
+	}
+
+	private static String trimSlash(String path) {
+		return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
 }
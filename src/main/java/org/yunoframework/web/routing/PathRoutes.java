@@ -0,0 +1,99 @@
+package org.yunoframework.web.routing;
+
+import org.yunoframework.web.http.HttpMethod;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Routes registered for one path, indexed by ordinal of their HTTP method
+ */
+public class PathRoutes {
+
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+
+	private final String path;
+	private final RouteInfo[] routes;
+	private String allow;
+
+	/**
+	 * Creates routes of path
+	 * @param path pattern of path, e. g. "/users/:id"
+	 */
+	public PathRoutes(String path) {
+		this.path = path;
+		this.routes = new RouteInfo[METHODS.length];
+	}
+
+	/**
+	 * Adds route
+	 * @param route route to add
+	 * @throws IllegalStateException if route with this method is already registered
+	 */
+	void add(RouteInfo route) throws IllegalStateException {
+		int index = route.getMethod().ordinal();
+		if (this.routes[index] != null) {
+			throw new IllegalStateException("Route with this path and method is already registered");
+		}
+
+		this.routes[index] = route;
+		this.allow = null;
+	}
+
+	/**
+	 * Precomputes value of Allow header and compiles chains of middlewares, it's called when routes are frozen
+	 * @param middlewares all registered middlewares sorted by priority
+	 */
+	void freeze(List<MiddlewareInfo> middlewares) {
+		for (RouteInfo route : this.routes) {
+			if (route != null) {
+				route.compile(middlewares);
+			}
+		}
+
+		this.computeAllow();
+	}
+
+	private void computeAllow() {
+		StringJoiner allow = new StringJoiner(", ");
+		for (HttpMethod method : METHODS) {
+			// HEAD is answered by GET route, OPTIONS is answered by Yuno
+			if (this.routes[method.ordinal()] != null ||
+					(method == HttpMethod.HEAD && this.routes[HttpMethod.GET.ordinal()] != null) ||
+					method == HttpMethod.OPTIONS) {
+				allow.add(method.name());
+			}
+		}
+
+		this.allow = allow.toString();
+	}
+
+	/**
+	 * Returns route registered for given method
+	 * @param method HTTP method
+	 * @return route registered for given method, null if there's no route for this method
+	 */
+	public RouteInfo get(HttpMethod method) {
+		return this.routes[method.ordinal()];
+	}
+
+	/**
+	 * Returns pattern of path, which was used to register first route of it
+	 * @return pattern of path, e. g. "/users/:id"
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns value of Allow header with methods supported by this path, it's precomputed when routes are frozen
+	 * @return value of Allow header
+	 */
+	public String getAllow() {
+		if (this.allow == null) {
+			this.computeAllow();
+		}
+
+		return allow;
+	}
+}
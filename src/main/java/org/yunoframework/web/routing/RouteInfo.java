@@ -2,6 +2,9 @@ package org.yunoframework.web.routing;
 
 import org.yunoframework.web.http.HttpMethod;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Keep information about route
  */
@@ -10,6 +13,8 @@ public class RouteInfo {
 	private final HttpMethod method;
 	private final String path;
 	private final Handler handler;
+	private final AsyncHandler asyncHandler;
+	private Handler[] middlewares;
 
 	/**
 	 * Creates instance of RouteInfo, it does not automatically register it do Yuno
@@ -21,6 +26,22 @@ public class RouteInfo {
 		this.method = method;
 		this.path = path;
 		this.handler = handler;
+		this.asyncHandler = null;
+		this.middlewares = new Handler[0];
+	}
+
+	/**
+	 * Creates instance of RouteInfo with asynchronous handler, it does not automatically register it do Yuno
+	 * @param method method of request
+	 * @param path path of request
+	 * @param asyncHandler asynchronous handler of route {@see AsyncHandler}
+	 */
+	public RouteInfo(HttpMethod method, String path, AsyncHandler asyncHandler) {
+		this.method = method;
+		this.path = path;
+		this.handler = null;
+		this.asyncHandler = asyncHandler;
+		this.middlewares = new Handler[0];
 	}
 
 	public HttpMethod getMethod() {
@@ -31,7 +52,51 @@ public class RouteInfo {
 		return path;
 	}
 
+	/**
+	 * Returns handler of route
+	 * @return handler of route, null if route is asynchronous
+	 */
 	public Handler getHandler() {
 		return handler;
 	}
+
+	/**
+	 * Returns asynchronous handler of route
+	 * @return asynchronous handler of route, null if route is synchronous
+	 */
+	public AsyncHandler getAsyncHandler() {
+		return asyncHandler;
+	}
+
+	/**
+	 * Checks if route is handled by {@see AsyncHandler}
+	 * @return true if route is asynchronous
+	 */
+	public boolean isAsync() {
+		return asyncHandler != null;
+	}
+
+	/**
+	 * Returns handlers of middlewares which apply to this route, sorted by priority.
+	 * They're compiled when routes are frozen, so handling request does not filter them
+	 * @return handlers of middlewares, empty array if there's none or routes are not frozen yet
+	 */
+	public Handler[] getMiddlewares() {
+		return middlewares;
+	}
+
+	/**
+	 * Compiles chain of middlewares which apply to this route, it's called when routes are frozen
+	 * @param middlewares all registered middlewares sorted by priority
+	 */
+	void compile(List<MiddlewareInfo> middlewares) {
+		List<Handler> chain = new ArrayList<>();
+		for (MiddlewareInfo middleware : middlewares) {
+			if (middleware.matches(this)) {
+				chain.add(middleware.getHandler());
+			}
+		}
+
+		this.middlewares = chain.toArray(new Handler[0]);
+	}
 }
@@ -0,0 +1,294 @@
+package org.yunoframework.web.routing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Radix tree of registered routes, lookup costs time proportional to length of path.
+ * Paths are matched case insensitive, they can contain parameters and catch-all segment:
+ * <ul>
+ *     <li><code>/users/:id</code> - ":id" matches one segment of path, it's value is put to path parameters as "id"</li>
+ *     <li><code>/files/*path</code> - "*path" matches rest of path, it's value is put to path parameters as "path", it must be last segment</li>
+ *     <li><code>/files/*</code> - unnamed catch-all segment, it's value is put to path parameters as "*"</li>
+ * </ul>
+ * Static segments have priority over parameters, parameters have priority over catch-all segments.
+ * Every path keeps it's routes in {@see PathRoutes} indexed by HTTP method.
+ * Routes must be registered before router is frozen, frozen router can't be modified
+ */
+public class Router {
+
+	private final Node root;
+	private boolean frozen;
+
+	public Router() {
+		this.root = new Node("");
+	}
+
+	/**
+	 * Adds route to tree
+	 * @param route route to add
+	 * @throws IllegalStateException when router is frozen, path of route is invalid, conflicts with other route or route with this path and method is already registered
+	 */
+	public void add(RouteInfo route) throws IllegalStateException {
+		if (this.frozen) {
+			throw new IllegalStateException("Routes can't be registered after server start");
+		}
+
+		String path = route.getPath();
+		if (!path.startsWith("/")) {
+			throw new IllegalStateException("Path must start with \"/\" (" + path + ")");
+		}
+
+		Node node = this.root;
+		int position = 0;
+		while (position < path.length()) {
+			char c = path.charAt(position);
+			if ((c == ':' || c == '*') && path.charAt(position - 1) != '/') {
+				throw new IllegalStateException("Parameter must be whole segment of path (" + path + ")");
+			}
+
+			if (c == ':') {
+				int end = path.indexOf('/', position);
+				end = end == -1 ? path.length() : end;
+				node = node.paramChild(parameterName(path, position + 1, end));
+				position = end;
+			}
+			else if (c == '*') {
+				if (path.indexOf('/', position) != -1) {
+					throw new IllegalStateException("Catch-all segment must be last segment of path (" + path + ")");
+				}
+
+				node = node.catchAllChild(position + 1 == path.length() ? "*" : path.substring(position + 1));
+				position = path.length();
+			}
+			else {
+				int end = nextParameter(path, position);
+				node = node.staticChild(path.substring(position, end).toLowerCase());
+				position = end;
+			}
+		}
+
+		if (node.routes == null) {
+			node.routes = new PathRoutes(path);
+		}
+
+		node.routes.add(route);
+	}
+
+	/**
+	 * Freezes router, precomputes data of all paths and compiles chains of middlewares of all routes,
+	 * after that routes can't be registered anymore
+	 * @param middlewares all registered middlewares sorted by priority
+	 */
+	public void freeze(List<MiddlewareInfo> middlewares) {
+		this.frozen = true;
+		this.root.freeze(middlewares);
+	}
+
+	/**
+	 * Checks if router is frozen
+	 * @return true if routes can't be registered anymore
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Searches routes matching given path
+	 * @param path path of request
+	 * @param params map where values of path parameters will be put
+	 * @return routes of matching path, null if not found
+	 */
+	public PathRoutes find(String path, Map<String, String> params) {
+		return this.root.match(path, 0, params);
+	}
+
+	private static String parameterName(String path, int start, int end) {
+		if (start == end) {
+			throw new IllegalStateException("Parameter must have name (" + path + ")");
+		}
+
+		return path.substring(start, end);
+	}
+
+	private static int nextParameter(String path, int from) {
+		for (int i = from; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (c == ':' || c == '*') {
+				return i;
+			}
+		}
+
+		return path.length();
+	}
+
+	/**
+	 * Node of radix tree, prefix is static part of path (lower case) consumed by this node
+	 */
+	private static final class Node {
+
+		private String prefix;
+		private char[] indices;
+		private Node[] children;
+
+		private String paramName;
+		private Node param;
+
+		private String catchAllName;
+		private Node catchAll;
+
+		private PathRoutes routes;
+
+		private Node(String prefix) {
+			this.prefix = prefix;
+			this.indices = new char[0];
+			this.children = new Node[0];
+		}
+
+		/**
+		 * Returns node which ends with given static path, splits existing nodes if needed
+		 */
+		private Node staticChild(String path) {
+			Node node = this;
+			while (!path.isEmpty()) {
+				int index = node.indexOf(path.charAt(0));
+				if (index == -1) {
+					Node child = new Node(path);
+					node.addChild(child);
+					return child;
+				}
+
+				Node child = node.children[index];
+				int common = commonPrefix(child.prefix, path);
+				if (common < child.prefix.length()) {
+					// Split child into common part and rest of it
+					Node split = new Node(child.prefix.substring(0, common));
+					child.prefix = child.prefix.substring(common);
+					split.addChild(child);
+					node.children[index] = split;
+					child = split;
+				}
+
+				node = child;
+				path = path.substring(common);
+			}
+
+			return node;
+		}
+
+		private Node paramChild(String name) {
+			if (this.param == null) {
+				this.param = new Node("");
+				this.paramName = name;
+			}
+			else if (!this.paramName.equals(name)) {
+				throw new IllegalStateException("Parameter \"" + name + "\" conflicts with registered parameter \"" + this.paramName + "\"");
+			}
+
+			return this.param;
+		}
+
+		private Node catchAllChild(String name) {
+			if (this.catchAll == null) {
+				this.catchAll = new Node("");
+				this.catchAllName = name;
+			}
+			else if (!this.catchAllName.equals(name)) {
+				throw new IllegalStateException("Catch-all \"" + name + "\" conflicts with registered catch-all \"" + this.catchAllName + "\"");
+			}
+
+			return this.catchAll;
+		}
+
+		private void freeze(List<MiddlewareInfo> middlewares) {
+			if (this.routes != null) {
+				this.routes.freeze(middlewares);
+			}
+
+			for (Node child : this.children) {
+				child.freeze(middlewares);
+			}
+
+			if (this.param != null) {
+				this.param.freeze(middlewares);
+			}
+
+			if (this.catchAll != null) {
+				this.catchAll.freeze(middlewares);
+			}
+		}
+
+		/**
+		 * Matches rest of path, prefix of this node is already consumed
+		 * @param path path of request
+		 * @param position position of first not consumed character
+		 * @param params map where values of path parameters will be put
+		 * @return routes of matching path, null if not found
+		 */
+		private PathRoutes match(String path, int position, Map<String, String> params) {
+			if (position == path.length() && this.routes != null) {
+				return this.routes;
+			}
+
+			if (position < path.length()) {
+				int index = this.indexOf(Character.toLowerCase(path.charAt(position)));
+				if (index != -1) {
+					Node child = this.children[index];
+					if (path.regionMatches(true, position, child.prefix, 0, child.prefix.length())) {
+						PathRoutes routes = child.match(path, position + child.prefix.length(), params);
+						if (routes != null) {
+							return routes;
+						}
+					}
+				}
+			}
+
+			if (this.param != null) {
+				int end = path.indexOf('/', position);
+				end = end == -1 ? path.length() : end;
+				if (end > position) {
+					PathRoutes routes = this.param.match(path, end, params);
+					if (routes != null) {
+						params.put(this.paramName, path.substring(position, end));
+						return routes;
+					}
+				}
+			}
+
+			if (this.catchAll != null) {
+				params.put(this.catchAllName, path.substring(position));
+				return this.catchAll.routes;
+			}
+
+			return null;
+		}
+
+		private int indexOf(char c) {
+			for (int i = 0; i < this.indices.length; i++) {
+				if (this.indices[i] == c) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		private void addChild(Node child) {
+			this.indices = Arrays.copyOf(this.indices, this.indices.length + 1);
+			this.children = Arrays.copyOf(this.children, this.children.length + 1);
+			this.indices[this.indices.length - 1] = child.prefix.charAt(0);
+			this.children[this.children.length - 1] = child;
+		}
+
+		private static int commonPrefix(String a, String b) {
+			int max = Math.min(a.length(), b.length());
+			int i = 0;
+			while (i < max && a.charAt(i) == b.charAt(i)) {
+				i++;
+			}
+
+			return i;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package org.yunoframework.web.routing;
+
+import org.yunoframework.web.data.Request;
+import org.yunoframework.web.data.Response;
+import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.http.MimeTypes;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Handler which serves files from directory, registered by {@see org.yunoframework.web.Yuno#statics(String, File)}
+ * with unnamed catch-all route, path of file is taken from "*" path parameter.
+ * Small files are kept in memory in LRU cache limited by total size, cache is invalidated when files in directory change.
+ * Bigger files and files which wouldn't fit in cache are transferred directly from disk, they are never compressed.
+ * Directory is watched by own thread until handler is closed, Yuno closes it's handlers in {@see org.yunoframework.web.Yuno#stop()}
+ */
+public class StaticFilesHandler implements Handler, Closeable {
+
+	private static final String INDEX_FILE = "index.html";
+
+	private final Path directory;
+	private final long maxCacheSize;
+	private final long maxCachedFileSize;
+
+	private final LinkedHashMap<Path, CachedFile> cache;
+	private final WatchService watchService;
+	private final Thread watcher;
+	private long cacheSize;
+	private long generation;
+	private boolean closed;
+
+	/**
+	 * Creates new instance of StaticFilesHandler and starts watching directory for changes
+	 * @param directory directory with files
+	 * @param maxCacheSize maximum amount of bytes kept in cache
+	 * @param maxCachedFileSize maximum size of file which can be kept in cache, bigger files are always sent from disk
+	 * @throws IllegalStateException when directory does not exist or can't be watched
+	 */
+	public StaticFilesHandler(File directory, long maxCacheSize, long maxCachedFileSize) throws IllegalStateException {
+		if (!directory.isDirectory()) {
+			throw new IllegalStateException("Static files directory does not exist (" + directory + ")");
+		}
+
+		this.directory = directory.toPath().toAbsolutePath().normalize();
+		this.maxCacheSize = maxCacheSize;
+		this.maxCachedFileSize = maxCachedFileSize;
+		this.cache = new LinkedHashMap<>(16, 0.75F, true);
+
+		try {
+			this.watchService = this.directory.getFileSystem().newWatchService();
+			this.watch(this.directory);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not watch static files directory (" + directory + ")", e);
+		}
+
+		this.watcher = new Thread(this::processEvents, "Yuno-Static-Watcher");
+		this.watcher.setDaemon(true);
+		this.watcher.start();
+	}
+
+	/**
+	 * Stops watching directory, watcher thread ends after that. Files are still served, but cache is not used anymore,
+	 * because it would not be invalidated when files change
+	 * @throws IOException when watch service can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			this.closed = true;
+			this.evictAll();
+		}
+
+		this.watchService.close();
+		this.watcher.interrupt();
+	}
+
+	@Override
+	public void apply(Request request, Response response) throws Exception {
+		Path path;
+		try {
+			path = this.resolve(request.pathParam("*"));
+		} catch (IllegalArgumentException e) {
+			// Malformed percent-encoding or character which can't be part of path (e. g. "%00"), it's mistake of client
+			response.setStatus(HttpStatus.BAD_REQUEST);
+			return;
+		}
+
+		if (path == null) {
+			response.setStatus(HttpStatus.NOT_FOUND);
+			return;
+		}
+
+		CachedFile cached = this.get(path);
+		if (cached != null) {
+			this.send(cached, response);
+			return;
+		}
+
+		// File which would not be kept in cache is not read to memory, it's sent directly from disk
+		File file = path.toFile();
+		if (!this.cacheable(file.length())) {
+			response.file(file);
+			return;
+		}
+
+		long generation = this.generation();
+		byte[] content = Files.readAllBytes(path);
+		cached = new CachedFile(content, MimeTypes.detect(file));
+		this.put(path, cached, generation);
+		this.send(cached, response);
+	}
+
+	/**
+	 * Writes cached file to response, instance of cached file is used as cache key, so it's compressed form
+	 * is cached until file is changed {@see org.yunoframework.web.http.Compressor}
+	 */
+	private void send(CachedFile cached, Response response) {
+		response.binary(cached.content, cached.contentType);
+		response.setCacheKey(cached);
+	}
+
+	/**
+	 * Resolves path of requested file, it does not allow to leave served directory
+	 * @param requestPath path of file relative to served directory
+	 * @return path of existing file, null if file does not exist
+	 * @throws IllegalArgumentException when path has malformed percent-encoding or it's not valid path {@see InvalidPathException}
+	 */
+	private Path resolve(String requestPath) throws IOException, IllegalArgumentException {
+		String relative = URLDecoder.decode(requestPath.replace("+", "%2B"), "UTF-8");
+		while (relative.startsWith("/")) {
+			relative = relative.substring(1);
+		}
+
+		Path path = this.directory.resolve(relative).normalize();
+		if (!path.startsWith(this.directory)) {
+			return null;
+		}
+
+		if (Files.isDirectory(path)) {
+			path = path.resolve(INDEX_FILE);
+		}
+
+		return Files.isRegularFile(path) ? path : null;
+	}
+
+	private synchronized CachedFile get(Path path) {
+		return this.cache.get(path);
+	}
+
+	/**
+	 * Checks if file of given size would be kept in cache
+	 * @param size size of file in bytes
+	 * @return true if file fits in cache and cache is not closed
+	 */
+	private synchronized boolean cacheable(long size) {
+		return !this.closed && size <= this.maxCachedFileSize && size <= this.maxCacheSize;
+	}
+
+	private synchronized long generation() {
+		return this.generation;
+	}
+
+	/**
+	 * Puts file to cache, unless any file was evicted since it was read, then it may be stale
+	 */
+	private synchronized void put(Path path, CachedFile file, long generation) {
+		if (generation != this.generation || this.closed) {
+			return;
+		}
+
+		CachedFile previous = this.cache.put(path, file);
+		if (previous != null) {
+			this.cacheSize -= previous.content.length;
+		}
+		this.cacheSize += file.content.length;
+
+		// Evict least recently used files
+		Iterator<Map.Entry<Path, CachedFile>> iterator = this.cache.entrySet().iterator();
+		while (this.cacheSize > this.maxCacheSize && iterator.hasNext()) {
+			this.cacheSize -= iterator.next().getValue().content.length;
+			iterator.remove();
+		}
+	}
+
+	private synchronized void evict(Path path) {
+		this.generation++;
+		Iterator<Map.Entry<Path, CachedFile>> iterator = this.cache.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, CachedFile> entry = iterator.next();
+			if (entry.getKey().startsWith(path)) {
+				this.cacheSize -= entry.getValue().content.length;
+				iterator.remove();
+			}
+		}
+	}
+
+	private synchronized void evictAll() {
+		this.generation++;
+		this.cache.clear();
+		this.cacheSize = 0;
+	}
+
+	/**
+	 * Registers given directory and all it's subdirectories in watch service
+	 */
+	private void watch(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+				dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Loop of watcher thread, evicts changed files from cache
+	 */
+	private void processEvents() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = this.watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path dir = (Path) key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					this.evictAll();
+					continue;
+				}
+
+				Path path = dir.resolve((Path) event.context());
+				this.evict(path);
+
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+					try {
+						this.watch(path);
+					} catch (ClosedWatchServiceException e) {
+						return;
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+
+			if (!key.reset()) {
+				this.evict(dir);
+			}
+		}
+	}
+
+	/**
+	 * File kept in memory with precomputed Content-Type
+	 */
+	private static final class CachedFile {
+		private final byte[] content;
+		private final String contentType;
+
+		private CachedFile(byte[] content, String contentType) {
+			this.content = content;
+			this.contentType = contentType;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.yunoframework.web.server;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream which collects written bytes in buffer leased from {@see BufferPool}, buffer is replaced by bigger one when it's full.
+ * It's used to serialize content which length has to be known before it's sent. It must be used by one thread at once
+ */
+public class BufferOutputStream extends OutputStream {
+
+	private final BufferPool pool;
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates new stream
+	 * @param pool pool from which buffers are leased
+	 * @param capacity initial capacity of buffer
+	 */
+	public BufferOutputStream(BufferPool pool, int capacity) {
+		this.pool = pool;
+		this.buffer = pool.acquire(capacity);
+	}
+
+	@Override
+	public void write(int b) {
+		this.ensureSpace(1);
+		this.buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		this.ensureSpace(len);
+		this.buffer.put(b, off, len);
+	}
+
+	/**
+	 * Takes buffer with written bytes, stream can't be used anymore
+	 * @return flipped buffer leased from pool, caller has to give it back
+	 */
+	public ByteBuffer toBuffer() {
+		ByteBuffer buffer = this.buffer;
+		this.buffer = null;
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Gives buffer back to pool, it's called when written bytes are not needed anymore
+	 */
+	@Override
+	public void close() {
+		if (this.buffer != null) {
+			this.pool.release(this.buffer);
+			this.buffer = null;
+		}
+	}
+
+	private void ensureSpace(int length) {
+		if (this.buffer.remaining() >= length) {
+			return;
+		}
+
+		long capacity = Math.max(this.buffer.capacity() * 2L, (long) this.buffer.position() + length);
+		if (capacity > Integer.MAX_VALUE) {
+			throw new OutOfMemoryError("Content is too large");
+		}
+
+		ByteBuffer bigger = this.pool.acquire((int) capacity);
+		this.buffer.flip();
+		bigger.put(this.buffer);
+
+		this.pool.release(this.buffer);
+		this.buffer = bigger;
+	}
+}
@@ -0,0 +1,115 @@
+package org.yunoframework.web.server;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct ByteBuffers divided into size classes (4 KB, 8 KB, ..., 1 MB).
+ * Buffers are sliced from 1 MB slabs allocated outside of Java heap, so leasing buffer does not create garbage.
+ * Buffers bigger than largest class are allocated on heap and not pooled. Pool is thread safe,
+ * buffers can be returned from any thread, but every buffer must be returned at most once
+ */
+public class BufferPool {
+
+	private static final int MIN_CLASS_SHIFT = 12;
+	private static final int CLASSES = 9;
+	private static final int SLAB_SIZE = 1 << (MIN_CLASS_SHIFT + CLASSES - 1);
+
+	private final long maxPooledBytes;
+	private final Queue<ByteBuffer>[] free;
+	private final AtomicLong pooledBytes;
+
+	/**
+	 * Creates new pool
+	 * @param maxPooledBytes maximum amount of bytes kept in free buffers, returned buffers above this limit are dropped
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public BufferPool(long maxPooledBytes) {
+		this.maxPooledBytes = maxPooledBytes;
+		this.free = new Queue[CLASSES];
+		for (int i = 0; i < CLASSES; i++) {
+			this.free[i] = new ConcurrentLinkedQueue<>();
+		}
+		this.pooledBytes = new AtomicLong();
+	}
+
+	/**
+	 * Leases cleared buffer with at least given capacity, it should be given back with {@see #release(ByteBuffer)}
+	 * @param capacity minimum capacity of buffer
+	 * @return cleared buffer
+	 */
+	public ByteBuffer acquire(int capacity) {
+		int sizeClass = sizeClass(capacity);
+		if (sizeClass >= CLASSES) {
+			return ByteBuffer.allocate(capacity);
+		}
+
+		ByteBuffer buffer = this.free[sizeClass].poll();
+		if (buffer != null) {
+			this.pooledBytes.addAndGet(-buffer.capacity());
+			return buffer;
+		}
+
+		return this.allocateSlab(sizeClass);
+	}
+
+	/**
+	 * Gives buffer back to pool, it can't be used by caller anymore
+	 * @param buffer buffer leased with {@see #acquire(int)}
+	 */
+	public void release(ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			return;
+		}
+
+		int sizeClass = sizeClass(buffer.capacity());
+		if (sizeClass >= CLASSES || classSize(sizeClass) != buffer.capacity()) {
+			return;
+		}
+
+		if (this.pooledBytes.addAndGet(buffer.capacity()) > this.maxPooledBytes) {
+			this.pooledBytes.addAndGet(-buffer.capacity());
+			return;
+		}
+
+		buffer.clear();
+		this.free[sizeClass].add(buffer);
+	}
+
+	/**
+	 * Allocates new slab and slices it into buffers of given class, first of them is returned, rest of them is added to pool
+	 */
+	private ByteBuffer allocateSlab(int sizeClass) {
+		int size = classSize(sizeClass);
+		ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+
+		ByteBuffer first = null;
+		for (int offset = 0; offset < SLAB_SIZE; offset += size) {
+			slab.limit(offset + size).position(offset);
+			ByteBuffer buffer = slab.slice();
+			if (first == null) {
+				first = buffer;
+				continue;
+			}
+
+			this.pooledBytes.addAndGet(size);
+			this.free[sizeClass].add(buffer);
+		}
+
+		return first;
+	}
+
+	private static int sizeClass(int capacity) {
+		if (capacity <= 1 << MIN_CLASS_SHIFT) {
+			return 0;
+		}
+
+		return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_CLASS_SHIFT;
+	}
+
+	private static int classSize(int sizeClass) {
+		return 1 << (sizeClass + MIN_CLASS_SHIFT);
+	}
+}
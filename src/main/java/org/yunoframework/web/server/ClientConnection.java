@@ -1,57 +1,578 @@
 package org.yunoframework.web.server;
 
+import org.yunoframework.web.Yuno;
 import org.yunoframework.web.data.Response;
 import org.yunoframework.web.http.HttpParser;
+import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.http.Json;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Representation of HTTP Client's connection to NIO server
+ * Representation of HTTP Client's persistent connection to NIO server.
+ * Requests received on one connection are handled one by one in order of arrival, next request waits while response of asynchronous handler is not ready,
+ * responses are queued in {@see OutboundQueue} and written without blocking, rest of them is written by reactor when channel is writable
  */
 public class ClientConnection {
 
+	/**
+	 * Amount of queued bytes above which connection stops reading next requests, until client receives responses.
+	 * Bytes of not handled requests, not flushed responses and not written responses are counted together
+	 */
+	private static final long HIGH_WATER_MARK = 1024 * 256;
+
+	/**
+	 * Maximum time in milliseconds for which streamed response waits for client to receive any bytes, then connection is closed
+	 */
+	private static final long STREAM_WRITE_TIMEOUT = 1000 * 30;
+
+	/**
+	 * Initial size of buffer to which status line and headers of response are serialized
+	 */
+	private static final int HEADERS_CAPACITY = 1024 * 4;
+
+	/**
+	 * Initial size of buffer to which JSON content of response is serialized
+	 */
+	private static final int JSON_CAPACITY = 1024 * 4;
+
+	/**
+	 * Response sent when server is overloaded, it's serialized once, so rejecting request costs nothing
+	 */
+	private static final ByteBuffer SERVICE_UNAVAILABLE = ByteBuffer.wrap((
+			"HTTP/1.1 " + HttpStatus.SERVICE_UNAVAILABLE.getMessage() + "\r\n" +
+			"Server: Yuno/" + Yuno.VERSION + "\r\n" +
+			"Retry-After: 1\r\n" +
+			"Content-Length: 0\r\n" +
+			"Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+
+	private final Yuno yuno;
 	private final SocketChannel channel;
-	private final RequestHandlerThread thread;
+	private final Reactor reactor;
+	private final RequestFramer framer;
+
+	private final Queue<FramedRequest> requests;
+	private final OutboundQueue responses;
+	private final OutboundQueue outbound;
+
+	private SelectionKey key;
+	private volatile int registeredOps;
+
+	// Bytes of queued requests and responses queued by worker, which are not moved to outbound queue yet
+	private long queuedRequestBytes;
+	private long unflushedResponseBytes;
+
+	private HttpStatus framingError;
+	private boolean processing;
+	private boolean inputClosed;
+	private boolean closeAfterFlush;
+	private boolean closeWhenDrained;
+	private boolean closed;
 
 	/**
 	 * Creates new instance of ClientConnection which represent connection of HTTP client
-	 * It must be called from {@see RequestHandlerThread)
+	 * @param yuno instance of Yuno
 	 * @param channel client's socket channel
+	 * @param reactor reactor which reads from this connection
 	 */
-	public ClientConnection(SocketChannel channel) {
+	public ClientConnection(Yuno yuno, SocketChannel channel, Reactor reactor) {
+		this.yuno = yuno;
 		this.channel = channel;
+		this.reactor = reactor;
+		this.framer = new RequestFramer(reactor.getBufferPool(), yuno.getMaxRequestSize(), yuno.getMultipartThreshold());
+		this.requests = new ArrayDeque<>();
+		this.responses = new OutboundQueue(reactor.getBufferPool());
+		this.outbound = new OutboundQueue(reactor.getBufferPool());
+	}
 
-		// Let's get current thread, we will need it later to access cached response builder
-		Thread thread = Thread.currentThread();
-		if (!(thread instanceof RequestHandlerThread)) {
-			throw new IllegalStateException("RequestHandler must be called from RequestHandlerThread");
+	/**
+	 * Attaches key of this connection, called by reactor after registration of channel
+	 * @param key key of channel registered in reactor's selector
+	 */
+	void attach(SelectionKey key) {
+		this.key = key;
+		this.registeredOps = key.interestOps();
+	}
+
+	/**
+	 * Returns framer which collects bytes received from this connection
+	 * @return framer of this connection
+	 */
+	public RequestFramer getFramer() {
+		return framer;
+	}
+
+	/**
+	 * Adds completely received request to queue of this connection
+	 * @param request complete request in buffer leased from reactor's pool, it will be given back after handling request
+	 */
+	public synchronized void offer(FramedRequest request) {
+		this.requests.add(request);
+		this.queuedRequestBytes += request.getBuffer().limit();
+	}
+
+	/**
+	 * Checks if connection should be read, it's not read while too many bytes are queued {@see #HIGH_WATER_MARK}
+	 * @return true if reactor should read next requests from this connection
+	 */
+	public boolean acceptsInput() {
+		return (this.desiredOps() & SelectionKey.OP_READ) != 0;
+	}
+
+	/**
+	 * Marks that request couldn't be framed, error will be sent after responses of already queued requests.
+	 * Connection won't be read anymore
+	 * @param error status of error
+	 */
+	public synchronized void fail(HttpStatus error) {
+		this.framingError = error;
+		this.inputClosed = true;
+	}
+
+	/**
+	 * Marks that client won't send anything more, connection will be closed after handling already queued requests
+	 */
+	public synchronized void closeInput() {
+		this.inputClosed = true;
+		if (this.processing || !this.requests.isEmpty() || this.framingError != null) {
+			return;
 		}
 
-		this.thread = (RequestHandlerThread) thread;
+		if (this.outbound.isEmpty()) {
+			this.close();
+		} else {
+			this.closeWhenDrained = true;
+		}
+	}
+
+	/**
+	 * Checks if connection has requests to handle and is not handled by any thread now, if so marks it as processed.
+	 * Requests are not handled while client does not receive already written responses, connection is scheduled again by {@see #write()}
+	 * @return true if caller should start {@see #process()} on worker thread
+	 */
+	public synchronized boolean schedule() {
+		if (this.processing || this.closeWhenDrained || this.closed || (this.requests.isEmpty() && this.framingError == null) ||
+				this.outbound.pending() >= HIGH_WATER_MARK) {
+			return false;
+		}
+
+		this.processing = true;
+		return true;
+	}
+
+	/**
+	 * Handles all queued requests in order, then writes their responses.
+	 * It must be called from worker thread after successful {@see #schedule()}.
+	 * If connection waited in queue of workers longer than {@see Yuno#getMaxQueueWait()} it's rejected instead
+	 * @param scheduledAt value of {@see System#nanoTime()} when connection was passed to queue of workers
+	 */
+	public void process(long scheduledAt) {
+		long waited = System.nanoTime() - scheduledAt;
+		if (this.yuno.getMetrics() != null) {
+			this.yuno.getMetrics().recordQueueWait(waited);
+		}
+
+		long maxQueueWait = this.yuno.getMaxQueueWait();
+		if (maxQueueWait > 0 && waited > TimeUnit.MILLISECONDS.toNanos(maxQueueWait)) {
+			this.reject();
+			return;
+		}
+
+		while (true) {
+			FramedRequest request;
+			HttpStatus error = null;
+			synchronized (this) {
+				// Responses are owned by this thread, reactor reads their size from here when it decides if connection should be read
+				this.unflushedResponseBytes = this.responses.pending();
+				request = this.requests.poll();
+				if (request != null) {
+					this.queuedRequestBytes -= request.getBuffer().limit();
+				}
+				else {
+					error = this.framingError;
+					this.framingError = null;
+				}
+			}
+
+			if (request != null || error != null) {
+				if (this.handle(request, error)) {
+					// Thread which completes asynchronous handler sends it's response and continues processing {@see #resume(FramedRequest)}
+					return;
+				}
+
+				// Responses of pipelined requests are written when there's enough of them, they're not kept until queue is empty
+				if (!this.closeAfterFlush && this.responses.pending() < HIGH_WATER_MARK) {
+					continue;
+				}
+			}
+
+			if (this.flushResponses()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Continues processing of connection after response of asynchronous handler was queued, it's called by thread which completed handler.
+	 * Next requests are handled on worker thread, so thread which completed handler is not blocked by them
+	 * @param request request handled by asynchronous handler, it's given back to pool now
+	 */
+	void resume(FramedRequest request) {
+		request.release(this.reactor.getBufferPool());
+		if (!this.flushResponses()) {
+			this.reactor.dispatch(this);
+		}
+	}
+
+	/**
+	 * Moves queued responses to outbound queue and writes them, connection is marked to close after them if it's needed
+	 * @return true if there's no more requests to handle or client does not receive responses, connection is not processed anymore then
+	 */
+	private boolean flushResponses() {
+		boolean done;
+		synchronized (this) {
+			this.outbound.addAll(this.responses);
+			this.unflushedResponseBytes = 0;
+			if (this.closed) {
+				// Connection was closed while handling requests, we have to release opened files
+				this.outbound.clear();
+			}
 
-		// Remove old data from current thread's response builder, we want to use it again
-		this.thread.clearResponseBuilder();
+			if (this.closeAfterFlush || (this.inputClosed && this.requests.isEmpty() && this.framingError == null)) {
+				this.closeWhenDrained = true;
+			}
+
+			// Worker is not blocked by client which does not receive responses, processing continues when they're written {@see #write()}
+			done = this.closeWhenDrained || (this.requests.isEmpty() && this.framingError == null) ||
+					this.outbound.pending() >= HIGH_WATER_MARK;
+			if (done) {
+				this.processing = false;
+			}
+		}
+
+		this.write();
+		return done;
 	}
 
 	/**
-	 * Sends response to client from this connection. If response has "Connection" header is "close" it will close client's channel
+	 * Rejects all queued requests with 503 (Service Unavailable) and closes connection after sending it.
+	 * It's used when server is overloaded, it can be called from reactor's thread or worker thread after successful {@see #schedule()}
+	 */
+	public void reject() {
+		if (this.yuno.getMetrics() != null) {
+			this.yuno.getMetrics().connectionRejected();
+		}
+
+		synchronized (this) {
+			this.releaseRequests();
+			this.framingError = null;
+			this.inputClosed = true;
+			this.outbound.add(SERVICE_UNAVAILABLE.duplicate());
+			this.closeWhenDrained = true;
+			this.processing = false;
+		}
+
+		this.write();
+	}
+
+	/**
+	 * Queues response to send to client from this connection. If response has "Connection" header is "close" connection
+	 * will be closed after writing it, and next requests from this connection won't be handled
 	 * @param response response to send
-	 * @throws IOException when network exception occurs
+	 * @throws IOException when file of response can't be opened
 	 */
 	public void send(Response response) throws IOException {
-		if (!this.thread.equals(Thread.currentThread())) {
-			throw new IllegalStateException("response must be send from the same thread which created this instance of ClientConnection");
+		this.send(response, false);
+	}
+
+	/**
+	 * Queues response to send to client from this connection. If response has "Connection" header is "close" connection
+	 * will be closed after writing it, and next requests from this connection won't be handled
+	 * @param response response to send
+	 * @param withoutContent if true only status and headers are sent, it's used to answer HEAD requests
+	 * @throws IOException when file of response can't be opened
+	 */
+	public void send(Response response, boolean withoutContent) throws IOException {
+		// Content of 1xx, 204 and 304 responses is never sent, client does not expect it
+		withoutContent |= !response.status().allowsContent();
+		FileRegion file = response.file() == null || withoutContent ? null : new FileRegion(response.file(), response.contentLength());
+
+		// JSON is serialized directly to pooled buffer, it's length has to be known before headers are serialized
+		ByteBuffer json = response.isJson() ? this.serializeJson(response.jsonContent()) : null;
+		long contentLength = json != null ? json.remaining() : response.isChunked() ? -1 : response.contentLength();
+
+		// Headers are serialized to pooled buffer, content is written from it's own array, they're written together by gathering write
+		this.responses.addPooled(this.serializeHeaders(response, contentLength));
+		if (json != null && !withoutContent) {
+			this.responses.addPooled(json);
+		}
+		else if (json != null) {
+			this.reactor.getBufferPool().release(json);
+		}
+		else if (!withoutContent) {
+			this.responses.add(ByteBuffer.wrap(response.content()));
 		}
 
-		this.channel.write(ByteBuffer.wrap(HttpParser.serializeResponse(this.thread.getResponseBuilder(), response)));
-		if (response.header("Connection").equalsIgnoreCase("close")) {
-			System.out.println("Closed");
-			this.channel.close();
+		if (file != null) {
+			this.responses.add(file);
+		}
+
+		if (response.bodyWriter() != null && !withoutContent) {
+			this.writeBody(response);
+		}
+
+		if ("close".equalsIgnoreCase(response.header("Connection"))) {
+			this.closeAfterFlush = true;
+		}
+	}
+
+	/**
+	 * Calls writer of streamed response, content is written to client while writer generates it.
+	 * If writer fails connection is closed, so client knows that response is incomplete
+	 * @param response streamed response
+	 */
+	private void writeBody(Response response) {
+		long contentLength = response.isChunked() ? -1 : response.contentLength();
+		ResponseOutputStream output = new ResponseOutputStream(this, this.reactor.getBufferPool(), contentLength);
+
+		// Stream must not be closed when writer fails, last chunk would tell client that response is complete
+		try {
+			response.bodyWriter().write(output);
+			output.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			this.closeAfterFlush = true;
+		}
+	}
+
+	/**
+	 * Queues part of streamed response and writes it without blocking, responses queued before are written first.
+	 * Then it blocks until amount of not written bytes drops below {@see #HIGH_WATER_MARK}, so streamed response does not
+	 * use more memory than that. It must be called from worker thread which handles request
+	 * @param buffer part of response in buffer leased from reactor's pool, it must be flipped before
+	 * @throws IOException when connection is closed or client does not receive response for {@see #STREAM_WRITE_TIMEOUT}
+	 */
+	void push(ByteBuffer buffer) throws IOException {
+		synchronized (this) {
+			if (this.closed || this.closeWhenDrained) {
+				this.reactor.getBufferPool().release(buffer);
+				throw new IOException("Connection is closed");
+			}
+
+			this.outbound.addAll(this.responses);
+			this.outbound.addPooled(buffer);
+		}
+
+		this.write();
+
+		boolean timedOut = false;
+		synchronized (this) {
+			long pending = this.outbound.pending();
+			long deadline = System.currentTimeMillis() + STREAM_WRITE_TIMEOUT;
+			while (!this.closed && this.outbound.pending() >= HIGH_WATER_MARK) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					timedOut = true;
+					break;
+				}
+
+				try {
+					// Reactor notifies after every write
+					this.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for client to receive response");
+				}
+
+				if (this.outbound.pending() < pending) {
+					pending = this.outbound.pending();
+					deadline = System.currentTimeMillis() + STREAM_WRITE_TIMEOUT;
+				}
+			}
+
+			if (this.closed) {
+				throw new IOException("Connection is closed");
+			}
+		}
+
+		if (timedOut) {
+			this.close();
+			throw new IOException("Client does not receive response");
+		}
+	}
+
+	/**
+	 * Serializes object to JSON in buffer leased from reactor's pool
+	 * @param object object to serialize
+	 * @return flipped buffer with serialized JSON
+	 * @throws IOException when object can't be serialized
+	 */
+	private ByteBuffer serializeJson(Object object) throws IOException {
+		BufferOutputStream output = new BufferOutputStream(this.reactor.getBufferPool(), JSON_CAPACITY);
+		try {
+			Json.write(object, output);
+			return output.toBuffer();
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Serializes status line and headers of response to buffer leased from reactor's pool, buffer is enlarged until they fit
+	 * @param response response to serialize
+	 * @param contentLength length of response's content, -1 if it's sent with chunked transfer encoding
+	 * @return flipped buffer with serialized headers
+	 */
+	private ByteBuffer serializeHeaders(Response response, long contentLength) {
+		BufferPool pool = this.reactor.getBufferPool();
+		int capacity = HEADERS_CAPACITY;
+		while (true) {
+			ByteBuffer buffer = pool.acquire(capacity);
+			try {
+				HttpParser.serializeHeaders(response, contentLength, buffer);
+				buffer.flip();
+				return buffer;
+			} catch (BufferOverflowException e) {
+				pool.release(buffer);
+				capacity = buffer.capacity() * 2;
+			}
+		}
+	}
+
+	/**
+	 * Writes queued responses as much as channel accepts without blocking, rest of them will be written by reactor
+	 * when channel becomes writable. It can be called from any thread
+	 */
+	public void write() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+
+			try {
+				long pending = this.outbound.pending();
+				boolean flushed = this.outbound.flush(this.channel);
+				if (this.yuno.getMetrics() != null && pending > this.outbound.pending()) {
+					this.yuno.getMetrics().bytesSent(pending - this.outbound.pending());
+				}
+
+				// Wakes up worker which streams response, if it waits for client
+				this.notifyAll();
+				if (flushed && this.closeWhenDrained) {
+					this.close();
+					return;
+				}
+			} catch (IOException e) {
+				this.close();
+				return;
+			}
+		}
+
+		if (this.desiredOps() != this.registeredOps) {
+			this.reactor.execute(this::updateInterest);
+		}
+
+		// Requests which waited for client to receive responses are handled now
+		if (this.schedule()) {
+			this.reactor.dispatch(this);
+		}
+	}
+
+	/**
+	 * Updates interest of connection's key in reactor's selector.
+	 * Connection isn't read when client does not receive responses fast enough, it's write interest is registered only
+	 * when there's something to write. It must be called from reactor's thread
+	 */
+	void updateInterest() {
+		if (this.key == null || !this.key.isValid()) {
+			return;
+		}
+
+		int ops = this.desiredOps();
+		if (ops != this.registeredOps) {
+			this.key.interestOps(ops);
+			this.registeredOps = ops;
+		}
+	}
+
+	private synchronized int desiredOps() {
+		int ops = 0;
+		long queued = this.outbound.pending() + this.unflushedResponseBytes + this.queuedRequestBytes;
+		if (!this.inputClosed && !this.closeWhenDrained && queued < HIGH_WATER_MARK) {
+			ops |= SelectionKey.OP_READ;
+		}
+
+		if (!this.outbound.isEmpty()) {
+			ops |= SelectionKey.OP_WRITE;
 		}
-		else {
-			System.out.println("keeped");
+
+		return ops;
+	}
+
+	/**
+	 * Handles request, it's buffer is given back to pool after response is queued
+	 * @return true if response will be sent by thread which completes asynchronous handler, request is released by it
+	 */
+	private boolean handle(FramedRequest request, HttpStatus error) {
+		boolean async = false;
+		try {
+			async = new RequestHandler(this.yuno, request, error, this).handle();
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			if (request != null && !async) {
+				request.release(this.reactor.getBufferPool());
+			}
+		}
+
+		return async;
+	}
+
+	/**
+	 * Gives buffers of not handled requests back to pool
+	 */
+	private synchronized void releaseRequests() {
+		FramedRequest request;
+		while ((request = this.requests.poll()) != null) {
+			request.release(this.reactor.getBufferPool());
+		}
+
+		this.queuedRequestBytes = 0;
+	}
+
+	/**
+	 * Closes client's channel, it's safe to call it multiple times
+	 */
+	public void close() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+
+			this.closed = true;
+			this.outbound.clear();
+			this.releaseRequests();
+			this.notifyAll();
+		}
+
+		this.reactor.connectionClosed();
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// Framer is used only by reactor's thread. Waking reactor up after closing channel also lets it's selector
+			// deregister the channel, socket isn't really closed until that happens
+			this.reactor.execute(this.framer::release);
 		}
 	}
 }
@@ -0,0 +1,64 @@
+package org.yunoframework.web.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Region of file waiting to be written to client's channel.
+ * It's transferred with {@see FileChannel#transferTo(long, long, WritableByteChannel)}, so content of file is not copied to Java heap
+ */
+public class FileRegion {
+
+	private final FileChannel file;
+	private final long end;
+	private long position;
+
+	/**
+	 * Opens file to transfer
+	 * @param file file to transfer
+	 * @param length amount of bytes to transfer from beginning of file
+	 * @throws IOException when file can't be opened
+	 */
+	public FileRegion(File file, long length) throws IOException {
+		this.file = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.end = length;
+	}
+
+	/**
+	 * Transfers as much bytes as target accepts without blocking
+	 * @param target channel to write
+	 * @return amount of transferred bytes
+	 * @throws IOException when network exception occurs or file was truncated while transferring
+	 */
+	public long transferTo(WritableByteChannel target) throws IOException {
+		long transferred = this.file.transferTo(this.position, this.end - this.position, target);
+		if (transferred == 0 && this.position >= this.file.size()) {
+			throw new IOException("File was truncated while sending it");
+		}
+
+		this.position += transferred;
+		return transferred;
+	}
+
+	/**
+	 * Returns amount of bytes waiting to be transferred
+	 * @return amount of bytes waiting to be transferred
+	 */
+	public long remaining() {
+		return this.end - this.position;
+	}
+
+	/**
+	 * Closes file
+	 */
+	public void close() {
+		try {
+			this.file.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
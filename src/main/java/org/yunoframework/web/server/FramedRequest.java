@@ -0,0 +1,55 @@
+package org.yunoframework.web.server;
+
+import org.yunoframework.web.data.MultipartEntry;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Complete request cut by {@see RequestFramer}, it's queued in connection until it's handled
+ */
+public class FramedRequest {
+
+	private final ByteBuffer buffer;
+	private final Map<String, MultipartEntry> multipart;
+
+	/**
+	 * Creates new instance of FramedRequest
+	 * @param buffer request in buffer leased from reactor's pool, from position 0 to end of request
+	 * @param multipart entries of multipart/form-data body decoded while request was received, null if body is in buffer
+	 */
+	public FramedRequest(ByteBuffer buffer, Map<String, MultipartEntry> multipart) {
+		this.buffer = buffer;
+		this.multipart = multipart;
+	}
+
+	/**
+	 * Returns request in buffer, from position 0 to end of request.
+	 * If body was decoded while request was received, buffer contains only request line and headers
+	 * @return request in buffer
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns entries of multipart/form-data body decoded while request was received
+	 * @return entries of multipart/form-data body, null if body is in buffer
+	 */
+	public Map<String, MultipartEntry> getMultipart() {
+		return multipart;
+	}
+
+	/**
+	 * Gives buffer back to pool and deletes temporary files of multipart entries, it's called after handling request
+	 * @param pool pool from which buffer was leased
+	 */
+	public void release(BufferPool pool) {
+		pool.release(this.buffer);
+		if (this.multipart != null) {
+			for (MultipartEntry entry : this.multipart.values()) {
+				entry.delete();
+			}
+		}
+	}
+}
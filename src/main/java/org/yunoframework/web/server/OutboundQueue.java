@@ -0,0 +1,182 @@
+package org.yunoframework.web.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Queue of data waiting to be written to client's channel, it contains {@see ByteBuffer}s and {@see FileRegion}s.
+ * Consecutive buffers are written by single gathering write. Buffers leased from {@see BufferPool} are given back to it
+ * when they're written or dropped. It's not thread safe, access must be guarded by owning {@see ClientConnection}
+ */
+public class OutboundQueue {
+
+	/**
+	 * Maximum amount of buffers passed to single gathering write
+	 */
+	private static final int MAX_GATHER = 64;
+
+	private final BufferPool pool;
+	private final ArrayDeque<Object> entries;
+	private final ArrayDeque<ByteBuffer> pooled;
+	private final ByteBuffer[] gather;
+	private long pending;
+
+	/**
+	 * Creates new queue
+	 * @param pool pool to which leased buffers are given back
+	 */
+	public OutboundQueue(BufferPool pool) {
+		this.pool = pool;
+		this.entries = new ArrayDeque<>();
+		this.pooled = new ArrayDeque<>();
+		this.gather = new ByteBuffer[MAX_GATHER];
+	}
+
+	/**
+	 * Adds buffer to the end of queue, buffer must be flipped before
+	 * @param buffer buffer to write
+	 */
+	public void add(ByteBuffer buffer) {
+		if (!buffer.hasRemaining()) {
+			return;
+		}
+
+		this.entries.add(buffer);
+		this.pending += buffer.remaining();
+	}
+
+	/**
+	 * Adds buffer leased from pool to the end of queue, it will be given back to pool when it's written
+	 * @param buffer buffer to write, it must be flipped before
+	 */
+	public void addPooled(ByteBuffer buffer) {
+		if (!buffer.hasRemaining()) {
+			this.pool.release(buffer);
+			return;
+		}
+
+		this.add(buffer);
+		this.pooled.add(buffer);
+	}
+
+	/**
+	 * Adds region of file to the end of queue
+	 * @param region region of file to write
+	 */
+	public void add(FileRegion region) {
+		if (region.remaining() == 0) {
+			region.close();
+			return;
+		}
+
+		this.entries.add(region);
+		this.pending += region.remaining();
+	}
+
+	/**
+	 * Moves all entries of other queue to the end of this queue
+	 * @param other queue to move, it will be empty after this call
+	 */
+	public void addAll(OutboundQueue other) {
+		this.entries.addAll(other.entries);
+		this.pooled.addAll(other.pooled);
+		this.pending += other.pending;
+
+		other.entries.clear();
+		other.pooled.clear();
+		other.pending = 0;
+	}
+
+	/**
+	 * Writes as much queued data as channel accepts without blocking
+	 * @param channel channel to write
+	 * @return true if whole queue was written, false if channel can't accept more bytes now
+	 * @throws IOException when network exception occurs
+	 */
+	public boolean flush(GatheringByteChannel channel) throws IOException {
+		while (!this.entries.isEmpty()) {
+			long written;
+			if (this.entries.peek() instanceof FileRegion) {
+				FileRegion region = (FileRegion) this.entries.peek();
+				written = region.transferTo(channel);
+				if (region.remaining() == 0) {
+					region.close();
+					this.entries.poll();
+				}
+			}
+			else {
+				int count = 0;
+				for (Object entry : this.entries) {
+					if (count == MAX_GATHER || !(entry instanceof ByteBuffer)) {
+						break;
+					}
+
+					this.gather[count++] = (ByteBuffer) entry;
+				}
+
+				written = channel.write(this.gather, 0, count);
+				Arrays.fill(this.gather, 0, count, null);
+
+				while (!this.entries.isEmpty() && this.entries.peek() instanceof ByteBuffer
+						&& !((ByteBuffer) this.entries.peek()).hasRemaining()) {
+					this.poll();
+				}
+			}
+
+			this.pending -= written;
+			if (written == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Drops all queued data, closes queued files and gives leased buffers back to pool
+	 */
+	public void clear() {
+		for (Object entry : this.entries) {
+			if (entry instanceof FileRegion) {
+				((FileRegion) entry).close();
+			}
+		}
+
+		for (ByteBuffer buffer : this.pooled) {
+			this.pool.release(buffer);
+		}
+
+		this.entries.clear();
+		this.pooled.clear();
+		this.pending = 0;
+	}
+
+	/**
+	 * Removes written buffer from head of queue, it's given back to pool if it was leased from it
+	 */
+	private void poll() {
+		Object entry = this.entries.poll();
+		if (entry == this.pooled.peek()) {
+			this.pool.release(this.pooled.poll());
+		}
+	}
+
+	/**
+	 * Returns amount of bytes waiting to be written
+	 * @return amount of bytes waiting to be written
+	 */
+	public long pending() {
+		return pending;
+	}
+
+	/**
+	 * Checks if there's nothing to write
+	 * @return true if there's nothing to write
+	 */
+	public boolean isEmpty() {
+		return this.entries.isEmpty();
+	}
+}
@@ -0,0 +1,208 @@
+package org.yunoframework.web.server;
+
+import org.yunoframework.web.Yuno;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * I/O selector loop, it reads requests from connections assigned to it by {@see SocketServer}.
+ * Every reactor runs on it's own thread and owns it's own selector and pool of buffers, which it's connections read into
+ */
+public class Reactor implements Runnable {
+
+	private final Yuno yuno;
+	private final Executor executor;
+	private final Selector selector;
+	private final BufferPool bufferPool;
+
+	private final Queue<SocketChannel> registrations;
+	private final Queue<Runnable> tasks;
+	private final AtomicInteger connections;
+
+	private volatile Thread thread;
+
+	/**
+	 * Creates new instance of Reactor, it does not automatically start it's loop
+	 * @param yuno instance of Yuno
+	 * @param executor executor which will handle received requests
+	 * @throws IOException when selector can't be opened
+	 */
+	public Reactor(Yuno yuno, Executor executor) throws IOException {
+		this.yuno = yuno;
+		this.executor = executor;
+		this.selector = Selector.open();
+		this.bufferPool = new BufferPool(1024 * 1024 * 16);
+		this.registrations = new ConcurrentLinkedQueue<>();
+		this.tasks = new ConcurrentLinkedQueue<>();
+		this.connections = new AtomicInteger();
+	}
+
+	/**
+	 * Assigns accepted channel to this reactor, it can be called from any thread
+	 * @param channel accepted client's channel
+	 */
+	public void register(SocketChannel channel) {
+		this.connections.incrementAndGet();
+		this.registrations.add(channel);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Runs task on thread of this reactor, if it's called from this reactor's thread task is run immediately
+	 * @param task task to run
+	 */
+	public void execute(Runnable task) {
+		if (Thread.currentThread() == this.thread) {
+			task.run();
+			return;
+		}
+
+		this.tasks.add(task);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Returns amount of connections currently assigned to this reactor
+	 * @return amount of connections currently assigned to this reactor
+	 */
+	public int getConnections() {
+		return connections.get();
+	}
+
+	/**
+	 * Returns pool of buffers used by connections of this reactor
+	 * @return pool of buffers used by connections of this reactor
+	 */
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * Passes connection to queue of workers, which will handle it's requests. It can be called from any thread
+	 * @param connection connection which is marked as processed by {@see ClientConnection#schedule()}
+	 */
+	void dispatch(ClientConnection connection) {
+		long scheduledAt = System.nanoTime();
+		try {
+			this.executor.execute(() -> connection.process(scheduledAt));
+		} catch (RejectedExecutionException e) {
+			// Queue of workers is full, we won't accept work which we can't finish
+			connection.reject();
+		}
+	}
+
+	/**
+	 * Called by {@see ClientConnection} when it's channel is closed
+	 */
+	void connectionClosed() {
+		this.connections.decrementAndGet();
+	}
+
+	/**
+	 * Stops loop of this reactor
+	 * @throws IOException when selector can't be closed
+	 */
+	public void stop() throws IOException {
+		this.selector.close();
+	}
+
+	@Override
+	public void run() {
+		this.thread = Thread.currentThread();
+
+		try {
+			while (this.selector.isOpen()) {
+				this.selector.select();
+				this.registerPending();
+				this.runTasks();
+
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+
+					if (!key.isValid()) {
+						continue;
+					}
+
+					if (key.isWritable()) {
+						((ClientConnection) key.attachment()).write();
+					}
+
+					if (key.isValid() && key.isReadable()) {
+						this.handleRead(key);
+					}
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Reactor was stopped
+		} catch (IOException e) {
+			throw new RuntimeException("An exception occurred in reactor loop", e);
+		}
+	}
+
+	private void registerPending() {
+		SocketChannel channel;
+		while ((channel = this.registrations.poll()) != null) {
+			ClientConnection connection = new ClientConnection(this.yuno, channel, this);
+			try {
+				channel.configureBlocking(false);
+				connection.attach(channel.register(this.selector, SelectionKey.OP_READ, connection));
+			} catch (IOException e) {
+				connection.close();
+			}
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = this.tasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	private void handleRead(SelectionKey key) {
+		SocketChannel channel = (SocketChannel) key.channel();
+		ClientConnection connection = (ClientConnection) key.attachment();
+		RequestFramer framer = connection.getFramer();
+
+		try {
+			int read;
+			do {
+				read = framer.read(channel);
+				if (read > 0 && this.yuno.getMetrics() != null) {
+					this.yuno.getMetrics().bytesReceived(read);
+				}
+
+				FramedRequest request;
+				while ((request = framer.next()) != null) {
+					connection.offer(request);
+				}
+				// Connection isn't read anymore while too many requests and responses are queued
+			} while (read > 0 && framer.getError() == null && connection.acceptsInput());
+
+			if (framer.getError() != null) {
+				// Request can't be framed anymore, we will send error and close connection
+				connection.fail(framer.getError());
+			}
+			else if (read < 0) {
+				// Client won't send anything more, but it may still wait for responses of already received requests
+				connection.closeInput();
+			}
+
+			connection.updateInterest();
+			if (connection.schedule()) {
+				this.dispatch(connection);
+			}
+		} catch (IOException e) {
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,623 @@
+package org.yunoframework.web.server;
+
+import org.yunoframework.web.data.MultipartEntry;
+import org.yunoframework.web.http.ByteSearch;
+import org.yunoframework.web.http.HttpStatus;
+import org.yunoframework.web.http.MultipartDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Stateful framer of HTTP requests, every client's connection has own instance attached to it's SelectionKey.
+ * Bytes are read from channel directly into buffer leased from reactor's {@see BufferPool}, framer cuts them into
+ * complete requests (headers and Content-Length bytes of body). Scanning continues from place where previous read stopped,
+ * so already received bytes are never scanned again. Framer holds no buffer while connection is idle.
+ * Body of multipart/form-data request is not collected, it's given to {@see MultipartDecoder} as it arrives,
+ * so buffer holds only headers and last received chunk. Chunked body (Transfer-Encoding: chunked) is decoded in place
+ * while it's received, sizes of chunks and trailers are dropped, so handler gets plain body. It must be used only by reactor's thread
+ */
+public class RequestFramer {
+
+	private static final int INITIAL_CAPACITY = 4096;
+	private static final int STREAMING_CAPACITY = 1024 * 64;
+	private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONTENT_TYPE = "content-type:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRANSFER_ENCODING = "transfer-encoding:".getBytes(StandardCharsets.US_ASCII);
+	private static final int MAX_CHUNK_LINE = 1024 * 4;
+	private static final int MAX_TRAILERS_SIZE = 1024 * 8;
+
+	// States of chunked body decoding
+	private static final int CHUNK_SIZE = 0;
+	private static final int CHUNK_DATA = 1;
+	private static final int CHUNK_DATA_END = 2;
+	private static final int CHUNK_TRAILERS = 3;
+	private static final int CHUNK_DONE = 4;
+
+	private final BufferPool pool;
+	private final int maxRequestSize;
+	private final long multipartThreshold;
+
+	private ByteBuffer buffer;
+
+	private int scanned;
+	private int headersEnd;
+	private int contentLength;
+	private HttpStatus error;
+
+	private MultipartDecoder multipart;
+	private int decoded;
+
+	private boolean chunked;
+	private int chunkState;
+	private long chunkRemaining;
+	private long chunkedLength;
+	private int bodyEnd;
+	private int trailersSize;
+
+	/**
+	 * Creates new instance of RequestFramer
+	 * @param pool pool from which buffers are leased
+	 * @param maxRequestSize maximum size of single request in bytes, 0 to disable limit
+	 * @param multipartThreshold size in bytes above which multipart entries are written to temporary files
+	 */
+	public RequestFramer(BufferPool pool, int maxRequestSize, long multipartThreshold) {
+		this.pool = pool;
+		this.maxRequestSize = maxRequestSize;
+		this.multipartThreshold = multipartThreshold;
+		this.headersEnd = -1;
+	}
+
+	/**
+	 * Reads bytes from channel into leased buffer, buffer is enlarged when current request does not fit in it
+	 * @param channel channel to read
+	 * @return amount of read bytes, -1 if end of stream was reached
+	 * @throws IOException when network exception occurs
+	 */
+	public int read(ReadableByteChannel channel) throws IOException {
+		if (this.buffer == null) {
+			this.buffer = this.pool.acquire(INITIAL_CAPACITY);
+		}
+		else if (!this.buffer.hasRemaining()) {
+			this.grow();
+		}
+
+		return channel.read(this.buffer);
+	}
+
+	/**
+	 * Cuts next complete request from received bytes
+	 * @return complete request, it's buffer must be given back to pool after handling request.
+	 *         null if request is not received completely yet or framing failed {@see #getError()}
+	 */
+	public FramedRequest next() {
+		if (this.error != null || this.buffer == null) {
+			return null;
+		}
+
+		int length = this.buffer.position();
+		if (this.headersEnd == -1) {
+			int end = ByteSearch.indexOfHeadersEnd(this.buffer, Math.max(0, this.scanned - 3), length);
+			if (end == -1) {
+				this.scanned = length;
+				if (this.maxRequestSize > 0 && length > this.maxRequestSize) {
+					this.error = HttpStatus.PAYLOAD_TOO_LARGE;
+				}
+
+				this.releaseIfEmpty();
+				return null;
+			}
+
+			this.headersEnd = end;
+			String transferEncoding = findHeader(this.buffer, end, TRANSFER_ENCODING);
+			if (transferEncoding != null && !transferEncoding.trim().equalsIgnoreCase("identity")) {
+				if (!transferEncoding.trim().equalsIgnoreCase("chunked")) {
+					this.error = HttpStatus.NOT_IMPLEMENTED;
+					return null;
+				}
+
+				// Request with both headers may be interpreted differently by proxy, it's used to smuggle requests
+				if (findHeaderLine(this.buffer, end, CONTENT_LENGTH) != -1) {
+					this.error = HttpStatus.BAD_REQUEST;
+					return null;
+				}
+
+				this.chunked = true;
+				this.bodyEnd = end;
+			}
+
+			this.contentLength = parseContentLength(this.buffer, end);
+			if (this.contentLength < 0) {
+				this.error = HttpStatus.BAD_REQUEST;
+				return null;
+			}
+
+			if (this.maxRequestSize > 0 && (long) this.headersEnd + this.contentLength > this.maxRequestSize) {
+				this.error = HttpStatus.PAYLOAD_TOO_LARGE;
+				return null;
+			}
+
+			if (this.contentLength > 0 || this.chunked) {
+				try {
+					this.multipart = MultipartDecoder.forContentType(findHeader(this.buffer, end, CONTENT_TYPE), this.multipartThreshold);
+				} catch (IllegalStateException e) {
+					this.error = HttpStatus.BAD_REQUEST;
+					return null;
+				}
+
+				// Body is streamed through buffer, so it has to fit only headers and reasonably big chunk of body
+				long capacity = (long) end + (this.chunked ? STREAMING_CAPACITY : Math.min(this.contentLength, STREAMING_CAPACITY));
+				if (this.multipart != null && this.buffer.capacity() < capacity) {
+					this.resize((int) capacity);
+				}
+			}
+		}
+
+		if (this.chunked) {
+			return this.decodeChunked(length);
+		}
+
+		if (this.multipart != null) {
+			return this.decodeMultipart(length);
+		}
+
+		int total = this.headersEnd + this.contentLength;
+		if (length < total) {
+			return null;
+		}
+
+		return new FramedRequest(this.cut(length, total), null);
+	}
+
+	/**
+	 * Gives received part of multipart body to decoder, buffer is rewound to end of headers
+	 * @param length amount of bytes in buffer
+	 * @return complete request with decoded entries, null if body is not received completely yet or it's malformed
+	 */
+	private FramedRequest decodeMultipart(int length) {
+		int available = Math.min(length - this.headersEnd, this.contentLength - this.decoded);
+		ByteBuffer chunk = this.buffer.duplicate();
+		chunk.limit(this.headersEnd + available).position(this.headersEnd);
+
+		try {
+			this.multipart.decode(chunk);
+			this.decoded += available;
+			if (this.decoded < this.contentLength) {
+				this.buffer.position(this.headersEnd);
+				return null;
+			}
+
+			Map<String, MultipartEntry> entries = this.multipart.finish();
+			int headersEnd = this.headersEnd;
+			FramedRequest request = new FramedRequest(this.cut(length, headersEnd + available), entries);
+			request.getBuffer().limit(headersEnd);
+			this.multipart = null;
+			this.decoded = 0;
+			return request;
+		} catch (IllegalStateException e) {
+			this.error = HttpStatus.BAD_REQUEST;
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.error = HttpStatus.INTERNAL_SERVER_ERROR;
+		}
+
+		this.multipart.discard();
+		this.multipart = null;
+		return null;
+	}
+
+	/**
+	 * Decodes received part of chunked body, if request is multipart/form-data decoded part is given to decoder.
+	 * Not decoded bytes are moved right after decoded body, so space of dropped chunk sizes is reused
+	 * @param length amount of bytes in buffer
+	 * @return complete request, null if body is not received completely yet or it's malformed
+	 */
+	private FramedRequest decodeChunked(int length) {
+		int position = this.dechunk(length);
+		if (position == -1) {
+			this.discardMultipart();
+			return null;
+		}
+
+		try {
+			if (this.multipart != null) {
+				ByteBuffer chunk = this.buffer.duplicate();
+				chunk.limit(this.bodyEnd).position(this.headersEnd);
+				this.multipart.decode(chunk);
+				this.bodyEnd = this.headersEnd;
+			}
+
+			int rest = length - position;
+			this.move(position, this.bodyEnd, rest);
+			length = this.bodyEnd + rest;
+			this.buffer.position(length);
+			if (this.chunkState != CHUNK_DONE) {
+				return null;
+			}
+
+			Map<String, MultipartEntry> entries = this.multipart == null ? null : this.multipart.finish();
+			this.multipart = null;
+			return new FramedRequest(this.cut(length, this.bodyEnd), entries);
+		} catch (IllegalStateException e) {
+			this.error = HttpStatus.BAD_REQUEST;
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.error = HttpStatus.INTERNAL_SERVER_ERROR;
+		}
+
+		this.discardMultipart();
+		return null;
+	}
+
+	/**
+	 * Decodes chunked body in place, data of chunks is moved to end of already decoded body {@see #bodyEnd}
+	 * @param length amount of bytes in buffer
+	 * @return index of first not decoded byte, -1 if body is malformed or too large {@see #getError()}
+	 */
+	private int dechunk(int length) {
+		int position = this.bodyEnd;
+		while (this.chunkState != CHUNK_DONE) {
+			switch (this.chunkState) {
+				case CHUNK_SIZE: {
+					int lineEnd = this.findLineEnd(position, length);
+					if (lineEnd < 0) {
+						return lineEnd == -1 ? position : -1;
+					}
+
+					long size = parseChunkSize(this.buffer, position, lineEnd);
+					if (size < 0) {
+						this.error = HttpStatus.BAD_REQUEST;
+						return -1;
+					}
+
+					// Body which is not decoded by multipart decoder has to fit in buffer
+					long limit = this.maxRequestSize > 0 ? this.maxRequestSize : this.multipart == null ? Integer.MAX_VALUE - 8 : Long.MAX_VALUE;
+					if (this.headersEnd + this.chunkedLength + size > limit) {
+						this.error = HttpStatus.PAYLOAD_TOO_LARGE;
+						return -1;
+					}
+
+					this.chunkRemaining = size;
+					this.chunkState = size == 0 ? CHUNK_TRAILERS : CHUNK_DATA;
+					position = lineEnd + 2;
+					break;
+				}
+				case CHUNK_DATA: {
+					int available = (int) Math.min(this.chunkRemaining, length - position);
+					if (available == 0) {
+						return position;
+					}
+
+					this.move(position, this.bodyEnd, available);
+					position += available;
+					this.bodyEnd += available;
+					this.chunkedLength += available;
+					this.chunkRemaining -= available;
+					if (this.chunkRemaining == 0) {
+						this.chunkState = CHUNK_DATA_END;
+					}
+
+					break;
+				}
+				case CHUNK_DATA_END:
+					if (length - position < 2) {
+						return position;
+					}
+
+					if (this.buffer.get(position) != '\r' || this.buffer.get(position + 1) != '\n') {
+						this.error = HttpStatus.BAD_REQUEST;
+						return -1;
+					}
+
+					position += 2;
+					this.chunkState = CHUNK_SIZE;
+					break;
+				case CHUNK_TRAILERS: {
+					int lineEnd = this.findLineEnd(position, length);
+					if (lineEnd < 0) {
+						return lineEnd == -1 ? position : -1;
+					}
+
+					// Trailers are not passed to handler, empty line ends body
+					this.trailersSize += lineEnd + 2 - position;
+					if (this.trailersSize > MAX_TRAILERS_SIZE) {
+						this.error = HttpStatus.BAD_REQUEST;
+						return -1;
+					}
+
+					if (lineEnd == position) {
+						this.chunkState = CHUNK_DONE;
+					}
+
+					position = lineEnd + 2;
+					break;
+				}
+			}
+		}
+
+		return position;
+	}
+
+	/**
+	 * Searches for end of line of chunked body
+	 * @return index of CR of complete line, -1 if line is not received completely yet, -2 if line is malformed or too long
+	 */
+	private int findLineEnd(int from, int length) {
+		int lineEnd = ByteSearch.indexOfCr(this.buffer, from, length - 1);
+		if (lineEnd == -1) {
+			if (length - from <= MAX_CHUNK_LINE) {
+				return -1;
+			}
+		}
+		else if (this.buffer.get(lineEnd + 1) == '\n') {
+			return lineEnd;
+		}
+
+		this.error = HttpStatus.BAD_REQUEST;
+		return -2;
+	}
+
+	/**
+	 * Moves bytes of buffer to lower index, ranges can overlap
+	 */
+	private void move(int from, int to, int length) {
+		if (from == to || length == 0) {
+			return;
+		}
+
+		if (this.buffer.hasArray()) {
+			byte[] array = this.buffer.array();
+			int offset = this.buffer.arrayOffset();
+			System.arraycopy(array, offset + from, array, offset + to, length);
+			return;
+		}
+
+		// Bytes are copied from the lowest index, so every byte is read before it's overwritten
+		int i = 0;
+		for (; i <= length - 8; i += 8) {
+			this.buffer.putLong(to + i, this.buffer.getLong(from + i));
+		}
+
+		for (; i < length; i++) {
+			this.buffer.put(to + i, this.buffer.get(from + i));
+		}
+	}
+
+	private void discardMultipart() {
+		if (this.multipart != null) {
+			this.multipart.discard();
+			this.multipart = null;
+		}
+	}
+
+	/**
+	 * Takes buffer with complete request, bytes of next pipelined request are moved to new buffer
+	 * @param length amount of bytes in buffer
+	 * @param total index after last byte of request
+	 * @return buffer with request from position 0 to end of it
+	 */
+	private ByteBuffer cut(int length, int total) {
+		ByteBuffer request = this.buffer;
+		this.buffer = null;
+		if (length > total) {
+			ByteBuffer rest = request.duplicate();
+			rest.limit(length).position(total);
+
+			this.buffer = this.pool.acquire(Math.max(INITIAL_CAPACITY, length - total));
+			this.buffer.put(rest);
+		}
+
+		request.limit(total).position(0);
+		this.scanned = 0;
+		this.headersEnd = -1;
+		this.contentLength = 0;
+		this.chunked = false;
+		this.chunkState = CHUNK_SIZE;
+		this.chunkedLength = 0;
+		this.trailersSize = 0;
+		return request;
+	}
+
+	/**
+	 * Returns error which occurred while framing requests, if it's not null connection can't be read anymore
+	 * @return error which occurred while framing requests, null if everything is good
+	 */
+	public HttpStatus getError() {
+		return error;
+	}
+
+	/**
+	 * Gives leased buffer back to pool and discards partially decoded multipart body, it's called when connection is closed
+	 */
+	public void release() {
+		this.discardMultipart();
+
+		if (this.buffer != null) {
+			this.pool.release(this.buffer);
+			this.buffer = null;
+		}
+	}
+
+	private void releaseIfEmpty() {
+		if (this.buffer.position() == 0) {
+			this.release();
+		}
+	}
+
+	/**
+	 * Replaces full buffer with bigger one, if headers of request are already received it's enlarged to size of whole request,
+	 * unless body is decoded while it's received
+	 */
+	private void grow() {
+		long capacity = this.buffer.capacity() * 2L;
+		if (this.headersEnd != -1 && this.multipart == null && !this.chunked) {
+			capacity = Math.max(capacity, (long) this.headersEnd + this.contentLength);
+		}
+		else if (this.maxRequestSize > 0) {
+			// Let it exceed limit by one byte, so framer can notice too large request.
+			// Decoded chunked body can be as big as limit, there must be space for line with size of next chunk after it
+			capacity = Math.min(capacity, this.maxRequestSize + (this.chunked ? MAX_CHUNK_LINE + 2L : 1L));
+		}
+
+		this.resize((int) Math.min(capacity, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Replaces buffer with new one with at least given capacity, received bytes are copied to it
+	 */
+	private void resize(int capacity) {
+		ByteBuffer bigger = this.pool.acquire(capacity);
+		this.buffer.flip();
+		bigger.put(this.buffer);
+
+		this.pool.release(this.buffer);
+		this.buffer = bigger;
+	}
+
+	/**
+	 * Searches for Content-Length headers in headers of request, all of them are checked.
+	 * Repeated header with different values or with list of values may be interpreted differently by proxy, it's used to smuggle requests
+	 * @param data received bytes
+	 * @param headersEnd index of first byte after headers
+	 * @return value of Content-Length header, 0 if header does not exist, -1 if it's malformed or repeated with different value
+	 */
+	private static int parseContentLength(ByteBuffer data, int headersEnd) {
+		int contentLength = -1;
+		int lineStart = 0;
+		int lineEnd;
+		while ((lineEnd = ByteSearch.indexOfCr(data, lineStart, headersEnd)) != -1) {
+			if (lineEnd - lineStart >= CONTENT_LENGTH.length && startsWithIgnoreCase(data, lineStart, CONTENT_LENGTH)) {
+				int value = parseLength(data, lineStart + CONTENT_LENGTH.length, lineEnd);
+				if (value == -1 || (contentLength != -1 && value != contentLength)) {
+					return -1;
+				}
+
+				contentLength = value;
+			}
+
+			lineStart = lineEnd + 2;
+		}
+
+		return contentLength == -1 ? 0 : contentLength;
+	}
+
+	/**
+	 * Parses value of Content-Length header, it must be single number optionally surrounded by whitespaces
+	 * @param data received bytes
+	 * @param from index of first byte of value
+	 * @param to index of CR which ends line
+	 * @return parsed value, -1 if it's malformed
+	 */
+	private static int parseLength(ByteBuffer data, int from, int to) {
+		while (from < to && (data.get(from) == ' ' || data.get(from) == '\t')) {
+			from++;
+		}
+
+		while (to > from && (data.get(to - 1) == ' ' || data.get(to - 1) == '\t')) {
+			to--;
+		}
+
+		if (from == to) {
+			return -1;
+		}
+
+		long value = 0;
+		for (int j = from; j < to; j++) {
+			byte b = data.get(j);
+			if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+				return -1;
+			}
+
+			value = value * 10 + (b - '0');
+		}
+
+		return value <= Integer.MAX_VALUE ? (int) value : -1;
+	}
+
+	/**
+	 * Parses size of chunk from it's line, chunk extensions are ignored
+	 * @param data received bytes
+	 * @param lineStart index of first byte of line
+	 * @param lineEnd index of CR which ends line
+	 * @return size of chunk, -1 if it's malformed
+	 */
+	private static long parseChunkSize(ByteBuffer data, int lineStart, int lineEnd) {
+		long value = 0;
+		int digits = 0;
+		for (int j = lineStart; j < lineEnd; j++) {
+			byte b = data.get(j);
+			if (b == ';' || b == ' ' || b == '\t') {
+				break;
+			}
+
+			int digit = Character.digit(b, 16);
+			if (digit == -1 || ++digits > 15) {
+				return -1;
+			}
+
+			value = value * 16 + digit;
+		}
+
+		return digits > 0 ? value : -1;
+	}
+
+	/**
+	 * Searches for header in headers of request
+	 * @param data received bytes
+	 * @param headersEnd index of first byte after headers
+	 * @param lowerCaseName lower case name of header with ":" at the end
+	 * @return value of header without leading whitespaces, null if header does not exist
+	 */
+	private static String findHeader(ByteBuffer data, int headersEnd, byte[] lowerCaseName) {
+		int lineStart = findHeaderLine(data, headersEnd, lowerCaseName);
+		if (lineStart == -1) {
+			return null;
+		}
+
+		StringBuilder value = new StringBuilder();
+		for (int j = lineStart + lowerCaseName.length; data.get(j) != '\r'; j++) {
+			byte b = data.get(j);
+			if (value.length() > 0 || (b != ' ' && b != '\t')) {
+				value.append((char) (b & 0xFF));
+			}
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * Searches for line of header in headers of request
+	 * @return index of first byte of header's line, -1 if header does not exist
+	 */
+	private static int findHeaderLine(ByteBuffer data, int headersEnd, byte[] lowerCaseName) {
+		int lineStart = 0;
+		int lineEnd;
+		while ((lineEnd = ByteSearch.indexOfCr(data, lineStart, headersEnd)) != -1) {
+			if (lineEnd - lineStart >= lowerCaseName.length && startsWithIgnoreCase(data, lineStart, lowerCaseName)) {
+				return lineStart;
+			}
+
+			lineStart = lineEnd + 2;
+		}
+
+		return -1;
+	}
+
+	private static boolean startsWithIgnoreCase(ByteBuffer data, int offset, byte[] lowerCasePrefix) {
+		for (int i = 0; i < lowerCasePrefix.length; i++) {
+			byte b = data.get(offset + i);
+			if (b >= 'A' && b <= 'Z') {
+				b += 'a' - 'A';
+			}
+
+			if (b != lowerCasePrefix[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -4,11 +4,16 @@ import org.yunoframework.web.data.Request;
 import org.yunoframework.web.data.Response;
 import org.yunoframework.web.Yuno;
 import org.yunoframework.web.http.HttpStatus;
-import org.yunoframework.web.routing.MiddlewareInfo;
+import org.yunoframework.web.http.HttpMethod;
+import org.yunoframework.web.metrics.Metrics;
+import org.yunoframework.web.routing.Handler;
+import org.yunoframework.web.routing.PathRoutes;
 import org.yunoframework.web.routing.RouteInfo;
 import org.yunoframework.web.http.HttpParser;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * It handles every request received by NIO server
@@ -16,92 +21,219 @@ import java.io.IOException;
 public class RequestHandler {
 
 	private final Yuno yuno;
-	private final byte[] rawRequest;
+	private final FramedRequest rawRequest;
 	private final HttpStatus handlingError;
 	private final ClientConnection connection;
+	private final long startedAt;
+
+	private PathRoutes pathRoutes;
+	private HttpMethod method;
+	private RouteInfo routeInfo;
 
 	/**
 	 * Creates new instance of RequestHandler, it does not automatically start handling request.
-	 * It must be called from {@see RequestHandlerThread)
 	 * @param yuno instance of Yuno
-	 * @param channel connection's channel
-	 * @param rawRequest received request as unparsed String
+	 * @param rawRequest received request, null if request couldn't be framed
 	 * @param handlingError error status which occured while handling request by NIO server, null if everything is good
 	 * @param connection instance of client's connection which this handler will handle
-	 * @throws IllegalStateException when constructor is called from another thread than {@see RequestHandlerThread)
 	 */
-	public RequestHandler(Yuno yuno, byte[] rawRequest, HttpStatus handlingError, ClientConnection connection) throws IllegalStateException {
+	public RequestHandler(Yuno yuno, FramedRequest rawRequest, HttpStatus handlingError, ClientConnection connection) {
 		this.yuno = yuno;
 		this.rawRequest = rawRequest;
 		this.handlingError = handlingError;
 		this.connection = connection;
+		this.startedAt = System.nanoTime();
 	}
 
 	/**
 	 * Start handling request given in constructor.
-	 * It must be called from the same thread as constructor of this instance {@see RequestHandlerThread}
-	 * @throws IllegalStateException when this method is called from other thread than constructor of this instance
+	 * It must be called from worker thread, response is queued in connection and flushed by {@see ClientConnection#process()}.
+	 * Response of asynchronous route is queued by thread which completes it's handler, then it calls {@see ClientConnection#resume(FramedRequest)}
+	 * @return true if route is asynchronous and it's response is not ready yet, request must not be released until it's completed
 	 * @throws IOException when networking exception occurs
 	 */
-	public void handle() throws IllegalStateException, IOException {
+	public boolean handle() throws IOException {
 		try {
 			if (this.handlingError != null && this.handlingError != HttpStatus.OK) {
-				this.connection.send(this.generateErrorResponse(this.handlingError));
-				return;
+				this.send(this.generateErrorResponse(this.handlingError, true), false);
+				return false;
 			}
 
-			Request request = HttpParser.parseRequest(rawRequest);
+			Request request = HttpParser.parseRequest(this.rawRequest.getBuffer());
 			if (request.getParseResult() != null && request.getParseResult() != HttpStatus.OK) {
-				this.connection.send(this.generateErrorResponse(request.getParseResult()));
-				return;
+				this.send(this.generateErrorResponse(request.getParseResult(), true), false);
+				return false;
+			}
+
+			if (this.rawRequest.getMultipart() != null) {
+				request.setBody(this.rawRequest.getMultipart());
 			}
 
 			if (!request.method().isSupported()) {
-				this.connection.send(this.generateErrorResponse(HttpStatus.NOT_IMPLEMENTED));
-				return;
+				this.send(this.generateErrorResponse(HttpStatus.NOT_IMPLEMENTED, false), false);
+				return false;
 			}
 
-			if (request.header("Transfer-Encoding") != null && 
-					!request.header("Transfer-Encoding").equalsIgnoreCase("identity")) {
-				System.err.println(this);this.generateErrorResponse(HttpStatus.NOT_IMPLEMENTED);
+			PathRoutes routes = this.yuno.findRoutes(request.path(), request.pathParams());
+			if (routes == null) {
+				this.send(this.generateErrorResponse(HttpStatus.NOT_FOUND, false), false);
+				return false;
 			}
 
-			RouteInfo routeInfo = yuno.findRoute(request.path());
-			if (routeInfo == null) {
-				this.connection.send(this.generateErrorResponse(HttpStatus.NOT_FOUND));
-				return;
+			this.pathRoutes = routes;
+			this.method = request.method();
+
+			// HEAD is answered by GET route, but content of response is not sent
+			boolean head = request.method() == HttpMethod.HEAD;
+			RouteInfo routeInfo = routes.get(request.method());
+			if (routeInfo == null && head) {
+				routeInfo = routes.get(HttpMethod.GET);
 			}
 
-			if (routeInfo.getMethod() != request.method()) {
-				this.connection.send(this.generateErrorResponse(HttpStatus.METHOD_NOT_ALLOWED));
-				return;
+			if (routeInfo == null && request.method() == HttpMethod.OPTIONS) {
+				Response response = new Response(HttpStatus.NO_CONTENT);
+				response.setHeader("Allow", routes.getAllow());
+				this.send(this.closeIfRequested(request, response), false);
+				return false;
 			}
 
-			Response response = new Response(HttpStatus.OK);
-			if (request.header("Connection") != null &&
-					request.header("Connection").equalsIgnoreCase("close")) {
-				response.markToClose();
+			if (routeInfo == null) {
+				Response response = this.generateErrorResponse(HttpStatus.METHOD_NOT_ALLOWED, false);
+				response.setHeader("Allow", routes.getAllow());
+				this.send(response, false);
+				return false;
 			}
 
-			for (MiddlewareInfo middleware : this.yuno.getMiddlewares()) {
-				middleware.getHandler().apply(request, response);
+			this.routeInfo = routeInfo;
+			Response response = this.closeIfRequested(request, new Response(HttpStatus.OK));
+			// Middlewares which apply to route are compiled when server starts
+			for (Handler middleware : routeInfo.getMiddlewares()) {
+				middleware.apply(request, response);
+				if (response.isHalted()) {
+					this.respond(request, response, head);
+					return false;
+				}
 			}
 
-			routeInfo.getHandler().apply(request, response);
+			if (routeInfo.isAsync()) {
+				CompletionStage<?> stage = routeInfo.getAsyncHandler().apply(request, response);
+				if (stage == null) {
+					throw new IllegalStateException("Asynchronous handler of " + routeInfo.getPath() + " returned null");
+				}
 
-			response.markToClose(); // TODO: 01/05/2021 Fix parting requests with keep-alive
-			this.connection.send(response);
+				// Already completed stage is handled like synchronous route, it saves passing connection to another worker
+				if (!(stage instanceof CompletableFuture) || !((CompletableFuture<?>) stage).isDone()) {
+					stage.whenComplete((result, error) -> this.complete(request, response, head, error));
+					return true;
+				}
+
+				((CompletableFuture<?>) stage).join();
+			}
+			else {
+				routeInfo.getHandler().apply(request, response);
+			}
+
+			this.respond(request, response, head);
+			return false;
 		} catch (Exception e) {
-			this.connection.send(this.generateErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR));
+			this.send(this.generateErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, true), false);
 			throw new RuntimeException("An exception occurred while processing request", e);
 		}
 	}
 
-	private Response generateErrorResponse(HttpStatus status) {
+	/**
+	 * Sends response of asynchronous route, it's called by thread which completed handler's stage
+	 * @param request request of client
+	 * @param response response prepared by handler
+	 * @param head if true content of response is not sent
+	 * @param error exception which completed stage, null if it's completed normally
+	 */
+	private void complete(Request request, Response response, boolean head, Throwable error) {
+		try {
+			if (error != null) {
+				throw new RuntimeException("An exception occurred while processing request", error);
+			}
+
+			this.respond(request, response, head);
+		} catch (Exception e) {
+			e.printStackTrace();
+			try {
+				this.send(this.generateErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, true), false);
+			} catch (IOException ignored) {
+				// Error page is not a file, it can't fail
+			}
+		} finally {
+			this.connection.resume(this.rawRequest);
+		}
+	}
+
+	/**
+	 * Compresses response, if it's enabled, and queues it in connection
+	 * @param request request of client
+	 * @param response response to send
+	 * @param head if true content of response is not sent
+	 * @throws IOException when file of response can't be opened
+	 */
+	private void respond(Request request, Response response, boolean head) throws IOException {
+		if (this.yuno.getCompressor() != null) {
+			this.yuno.getCompressor().compress(request.header("Accept-Encoding"), response);
+		}
+
+		this.send(response, head);
+	}
+
+	/**
+	 * Queues response in connection and records time of handling request, if metrics are enabled.
+	 * Time of streamed response includes writing it's content
+	 * @param response response to send
+	 * @param head if true content of response is not sent
+	 * @throws IOException when file of response can't be opened
+	 */
+	private void send(Response response, boolean head) throws IOException {
+		this.connection.send(response, head);
+		Metrics metrics = this.yuno.getMetrics();
+		if (metrics == null) {
+			return;
+		}
+
+		long nanos = System.nanoTime() - this.startedAt;
+		if (this.routeInfo == null && this.pathRoutes != null) {
+			// Path was matched, but response was generated by Yuno because there's no route for method of request
+			metrics.recordRequest(this.pathRoutes, this.method, response.status(), nanos);
+		}
+		else {
+			metrics.recordRequest(this.routeInfo, response.status(), nanos);
+		}
+	}
+
+	/**
+	 * Marks response to close connection, if client requested it with "Connection: close" header
+	 * @param request request of client
+	 * @param response response to mark
+	 * @return given response
+	 */
+	private Response closeIfRequested(Request request, Response response) {
+		if (request.header("Connection") != null &&
+				request.header("Connection").equalsIgnoreCase("close")) {
+			response.markToClose();
+		}
+
+		return response;
+	}
+
+	/**
+	 * Generates response with error page
+	 * @param status status of error
+	 * @param close if true connection will be closed after sending response, it should be used when request can't be trusted
+	 * @return generated response
+	 */
+	private Response generateErrorResponse(HttpStatus status, boolean close) {
 		Response response = new Response(status);
 		response.html("<html><head><title>" + status.getMessage() + "</title></head>" +
 				"<body><h1>" + status.getMessage() + "</h1><hr /><h3>Yuno/1.0</h3></body></html>", status);
-		response.markToClose();
+		if (close) {
+			response.markToClose();
+		}
 
 		return response;
 	}
@@ -0,0 +1,180 @@
+package org.yunoframework.web.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stream of streamed response's content {@see org.yunoframework.web.data.BodyWriter}. Written bytes are collected
+ * in buffer leased from reactor's {@see BufferPool}, which is passed to connection when it's full or stream is flushed.
+ * Connection blocks writing thread while client does not receive already written bytes, so memory used by response is bounded.
+ * Content of chunked response is framed in place, every buffer is one chunk. It must be used by one thread at once
+ */
+public class ResponseOutputStream extends OutputStream {
+
+	private static final int BUFFER_SIZE = 1024 * 16;
+	private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	// Size of chunk is written with leading zeros, so it's line has always the same length
+	private static final int CHUNK_SIZE_DIGITS = 8;
+	private static final int CHUNK_HEADER_SIZE = CHUNK_SIZE_DIGITS + 2;
+
+	// Chunk is ended by CRLF, there must be space for last chunk after it
+	private static final int CHUNK_TRAILER_SIZE = 2 + LAST_CHUNK.length;
+
+	private final ClientConnection connection;
+	private final BufferPool pool;
+	private final long contentLength;
+
+	private ByteBuffer buffer;
+	private long written;
+	private boolean closed;
+
+	/**
+	 * Creates new stream of response's content
+	 * @param connection connection to which content is sent
+	 * @param pool pool from which buffers are leased
+	 * @param contentLength length of content sent in Content-Length header, -1 if content is sent with chunked transfer encoding
+	 */
+	public ResponseOutputStream(ClientConnection connection, BufferPool pool, long contentLength) {
+		this.connection = connection;
+		this.pool = pool;
+		this.contentLength = contentLength;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.ensureSpace(1);
+		this.buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int length = Math.min(len, this.ensureSpace(len));
+			this.buffer.put(b, off, length);
+			off += length;
+			len -= length;
+		}
+	}
+
+	/**
+	 * Passes written bytes to connection, it blocks while client does not receive bytes written before
+	 * @throws IOException when connection is closed
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (this.buffer == null || this.dataSize() == 0) {
+			return;
+		}
+
+		this.send(false);
+	}
+
+	/**
+	 * Passes written bytes to connection and ends response, it's safe to call it multiple times
+	 * @throws IOException when connection is closed or amount of written bytes is not equal to Content-Length
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		if (this.contentLength >= 0) {
+			this.flush();
+			this.closed = true;
+			if (this.written != this.contentLength) {
+				throw new IOException("Written " + this.written + " bytes of content, but Content-Length is " + this.contentLength);
+			}
+
+			return;
+		}
+
+		if (this.buffer == null) {
+			this.buffer = this.acquire();
+		}
+
+		this.send(true);
+	}
+
+	/**
+	 * Makes sure that there's space in buffer, full buffer is passed to connection
+	 * @param length amount of bytes which caller wants to write
+	 * @return amount of bytes which can be written to buffer
+	 * @throws IOException when stream is closed or content would be longer than Content-Length
+	 */
+	private int ensureSpace(int length) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream is closed");
+		}
+
+		if (this.contentLength >= 0 && this.written + length > this.contentLength) {
+			throw new IOException("Content is longer than Content-Length (" + this.contentLength + ")");
+		}
+
+		if (this.buffer != null && this.space() == 0) {
+			this.send(false);
+		}
+
+		if (this.buffer == null) {
+			this.buffer = this.acquire();
+		}
+
+		this.written += Math.min(length, this.space());
+		return this.space();
+	}
+
+	private ByteBuffer acquire() {
+		ByteBuffer buffer = this.pool.acquire(BUFFER_SIZE);
+		if (this.contentLength < 0) {
+			buffer.position(CHUNK_HEADER_SIZE);
+		}
+
+		return buffer;
+	}
+
+	private int space() {
+		return this.buffer.remaining() - (this.contentLength < 0 ? CHUNK_TRAILER_SIZE : 0);
+	}
+
+	private int dataSize() {
+		return this.buffer.position() - (this.contentLength < 0 ? CHUNK_HEADER_SIZE : 0);
+	}
+
+	/**
+	 * Frames buffer as chunk, if response is chunked, and passes it to connection
+	 * @param last if true last chunk is appended, which ends response
+	 */
+	private void send(boolean last) throws IOException {
+		ByteBuffer buffer = this.buffer;
+		this.buffer = null;
+		this.closed = this.closed || last;
+
+		int start = 0;
+		if (this.contentLength < 0) {
+			int size = buffer.position() - CHUNK_HEADER_SIZE;
+			if (size > 0) {
+				for (int i = CHUNK_SIZE_DIGITS - 1; i >= 0; i--) {
+					buffer.put(i, HEX_DIGITS[(size >>> ((CHUNK_SIZE_DIGITS - 1 - i) * 4)) & 0xF]);
+				}
+
+				buffer.put(CHUNK_SIZE_DIGITS, (byte) '\r').put(CHUNK_SIZE_DIGITS + 1, (byte) '\n');
+				buffer.put((byte) '\r').put((byte) '\n');
+			}
+			else {
+				start = CHUNK_HEADER_SIZE;
+			}
+
+			if (last) {
+				buffer.put(LAST_CHUNK);
+			}
+		}
+
+		buffer.flip();
+		buffer.position(start);
+		this.connection.push(buffer);
+	}
+}
@@ -1,26 +1,27 @@
 package org.yunoframework.web.server;
 
 import org.yunoframework.web.Yuno;
-import org.yunoframework.web.http.HttpStatus;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.*;
 import java.util.concurrent.*;
 
 /**
- * Implementation of NIO based server
+ * Implementation of NIO based server.
+ * Listening thread accepts connections and assigns them to least loaded {@see Reactor}, reactors read requests
+ * and pass them to worker threads
  */
 public class SocketServer {
 
-	private final ThreadPoolExecutor threadPool;
-	private final ByteBuffer buffer;
+	private final ExecutorService threadPool;
+	private final Reactor[] reactors;
+	private final Thread[] reactorThreads;
 
-	private ServerSocketChannel serverChannel;
-	private Selector selector;
+	private volatile ServerSocketChannel serverChannel;
+	private volatile Selector selector;
+	private int nextReactor;
 
 	private Yuno yuno;
 
@@ -28,17 +29,39 @@ public class SocketServer {
 	 * Creates instance of NIO server
 	 *
 	 * @param yuno instance of Yuno
-	 * @param threads number of threads used for handling connections
+	 * @param threads number of threads used for handling connections, ignored when virtual threads are used
+	 * @param reactors number of threads used for reading requests from connections
+	 * @param virtualThreads if true every request is handled on new virtual thread, instead of fixed thread pool
+	 * @param queueSize maximum amount of connections waiting for free thread, when queue is full requests are rejected
+	 *                  with 503 (Service Unavailable), 0 to disable limit. It's ignored when virtual threads are used
+	 * @throws IllegalStateException when selector of reactor can't be opened or virtual threads are not supported
 	 */
-	public SocketServer(Yuno yuno, int threads) {
-		this.buffer = ByteBuffer.allocate(8192);
-		this.threadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),  RequestHandlerThread::new);
-		this.threadPool.prestartAllCoreThreads();
+	public SocketServer(Yuno yuno, int threads, int reactors, boolean virtualThreads, int queueSize) throws IllegalStateException {
+		if (virtualThreads) {
+			this.threadPool = newVirtualThreadExecutor();
+		} else {
+			BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new LinkedBlockingQueue<>();
+			ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,  RequestHandlerThread::new);
+			threadPool.prestartAllCoreThreads();
+			this.threadPool = threadPool;
+		}
 		this.yuno = yuno;
+
+		this.reactors = new Reactor[reactors];
+		this.reactorThreads = new Thread[reactors];
+		for (int i = 0; i < reactors; i++) {
+			try {
+				this.reactors[i] = new Reactor(yuno, this.threadPool);
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not open selector of reactor", e);
+			}
+
+			this.reactorThreads[i] = new Thread(this.reactors[i], "Yuno-Reactor-" + i);
+		}
 	}
 
 	/**
-	 * Starts server
+	 * Starts server, it blocks until server is stopped {@see #stop()}
 	 *
 	 * @param address address to bind
 	 */
@@ -50,24 +73,30 @@ public class SocketServer {
 		this.serverChannel.socket().bind(address);
 		this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
 
-		while (true) {
-			this.selector.select();
+		for (Thread thread : this.reactorThreads) {
+			thread.start();
+		}
 
-			Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
-			while (keys.hasNext()) {
-				SelectionKey key = keys.next();
-				keys.remove();
+		try {
+			while (this.selector.isOpen()) {
+				this.selector.select();
 
-				if (!key.isValid()) {
-					continue;
-				}
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
 
-				if (key.isAcceptable()) {
-					handleAccept(key);
-				} else if (key.isReadable()) {
-					handleRead(key);
+					if (!key.isValid()) {
+						continue;
+					}
+
+					if (key.isAcceptable()) {
+						handleAccept(key);
+					}
 				}
 			}
+		} catch (ClosedSelectorException e) {
+			// Server was stopped
 		}
 	}
 
@@ -75,68 +104,79 @@ public class SocketServer {
 	 * Stops server
 	 */
 	public void stop() throws IOException {
-		this.serverChannel.close();
-		this.selector.close();
+		// Server could be created without listening
+		if (this.serverChannel != null) {
+			this.serverChannel.close();
+			this.selector.close();
+		}
+
+		for (Reactor reactor : this.reactors) {
+			reactor.stop();
+		}
 		this.threadPool.shutdown();
 	}
 
-	private void handleAccept(SelectionKey key) throws IOException {
-		SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
-		channel.configureBlocking(false);
-		channel.register(this.selector, SelectionKey.OP_READ);
+	/**
+	 * Returns amount of opened connections
+	 * @return amount of connections assigned to all reactors
+	 */
+	public long getConnections() {
+		long connections = 0;
+		for (Reactor reactor : this.reactors) {
+			connections += reactor.getConnections();
+		}
+
+		return connections;
 	}
 
-	private void handleRead(SelectionKey key) {
-		ByteArrayOutputStream requestStream = new ByteArrayOutputStream();
-		SocketChannel channel = (SocketChannel) key.channel();
-		this.buffer.clear();
+	/**
+	 * Returns amount of connections waiting for free thread
+	 * @return size of queue of workers, 0 when virtual threads are used, because they're not queued
+	 */
+	public long getQueueDepth() {
+		return this.threadPool instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) this.threadPool).getQueue().size() : 0;
+	}
 
+	/**
+	 * Creates executor which starts new virtual thread for every task, it's looked up reflectively, so Yuno still runs on older Java
+	 * @return executor which starts new virtual thread for every task
+	 * @throws IllegalStateException when current Java does not support virtual threads
+	 */
+	private static ExecutorService newVirtualThreadExecutor() throws IllegalStateException {
 		try {
-			int read;
-			while ((read = channel.read(this.buffer)) > 0) {
-				this.buffer.flip();
-				byte[] bytes = new byte[this.buffer.limit()];
-				this.buffer.get(bytes);
-
-				requestStream.write(bytes);
-				this.buffer.clear();
-
-				if (this.yuno.getMaxRequestSize() > 0 && requestStream.size() > this.yuno.getMaxRequestSize()) {
-					this.handleRequest(requestStream, channel, HttpStatus.PAYLOAD_TOO_LARGE);
-					return;
-				}
-			}
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create virtual thread executor", e);
+		}
+	}
 
-			if (read < 0) {
-				this.close(channel, requestStream);
-				return;
+	private void handleAccept(SelectionKey key) throws IOException {
+		SocketChannel channel;
+		while ((channel = ((ServerSocketChannel) key.channel()).accept()) != null) {
+			if (this.yuno.getMetrics() != null) {
+				this.yuno.getMetrics().connectionAccepted();
 			}
 
-			this.handleRequest(requestStream, channel, null);
-		} catch (IOException e) {
-			this.close(channel, requestStream);
+			this.selectReactor().register(channel);
 		}
 	}
 
-	private void handleRequest(ByteArrayOutputStream stream, SocketChannel channel, HttpStatus handleError) {
-		this.threadPool.execute(() -> {
-			try {
-				byte[] rawRequest = stream.toByteArray();
-				stream.close();
-
-				new RequestHandler(yuno, rawRequest, handleError, new ClientConnection(channel)).handle();
-			} catch (IOException e) {
-				this.close(channel, stream);
+	/**
+	 * Selects reactor with the lowest amount of connections, ties are resolved with round-robin
+	 * @return reactor which should handle next connection
+	 */
+	private Reactor selectReactor() {
+		Reactor selected = null;
+		for (int i = 0; i < this.reactors.length; i++) {
+			Reactor reactor = this.reactors[(this.nextReactor + i) % this.reactors.length];
+			if (selected == null || reactor.getConnections() < selected.getConnections()) {
+				selected = reactor;
 			}
-		});
-	}
-
-	private void close(SocketChannel channel, ByteArrayOutputStream stream) {
-		try {
-			channel.close();
-			stream.close();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
 		}
+
+		this.nextReactor = (this.nextReactor + 1) % this.reactors.length;
+		return selected;
 	}
 }
@@ -0,0 +1,206 @@
+package org.yunoframework.web.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteSearchTest {
+
+	@Test
+	public void findsPatternAtStartMiddleAndTail() {
+		ByteSearch search = new ByteSearch(bytes("--boundary"));
+		assertEquals(0, search.indexOf(bytes("--boundary and more"), 0, 19));
+		assertEquals(5, search.indexOf(bytes("data --boundary data"), 0, 20));
+		assertEquals(5, search.indexOf(bytes("data --boundary"), 0, 15));
+	}
+
+	@Test
+	public void respectsBoundsOfSearch() {
+		ByteSearch search = new ByteSearch(bytes("abc"));
+		byte[] data = bytes("abc-abc-abc");
+		assertEquals(4, search.indexOf(data, 1, data.length));
+		assertEquals(8, search.indexOf(data, 5, data.length));
+
+		// Pattern must end before "to"
+		assertEquals(-1, search.indexOf(data, 5, 10));
+		assertEquals(4, search.indexOf(data, 4, 7));
+		assertEquals(-1, search.indexOf(data, 4, 6));
+	}
+
+	@Test
+	public void doesNotFindPatternLongerThanData() {
+		ByteSearch search = new ByteSearch(bytes("\r\n--boundary"));
+		assertEquals(-1, search.indexOf(bytes("\r\n--bound"), 0, 9));
+		assertEquals(-1, search.indexOf(new byte[0], 0, 0));
+	}
+
+	@Test
+	public void findsPatternWithRepeatedBytes() {
+		// Skip table must not jump over match which starts inside partial match
+		assertEquals(1, new ByteSearch(bytes("aab")).indexOf(bytes("aaab"), 0, 4));
+		assertEquals(2, new ByteSearch(bytes("abab")).indexOf(bytes("ababab"), 1, 6));
+		assertEquals(3, new ByteSearch(bytes("x")).indexOf(bytes("abcx"), 0, 4));
+		assertEquals(-1, new ByteSearch(bytes("x")).indexOf(bytes("abcx"), 0, 3));
+	}
+
+	@Test
+	public void findsPatternWithNonAsciiBytes() {
+		byte[] pattern = {(byte) 0xFF, (byte) 0x80, 0x0D, (byte) 0xFE};
+		byte[] data = {0x7F, (byte) 0xFF, (byte) 0x80, 0x0D, (byte) 0xFF, (byte) 0x80, 0x0D, (byte) 0xFE, 0x00};
+		assertEquals(4, new ByteSearch(pattern).indexOf(data, 0, data.length));
+	}
+
+	@Test
+	public void matchesNaiveSearchOnRandomData() {
+		Random random = new Random(0);
+		for (int round = 0; round < 2000; round++) {
+			// Small alphabet makes many partial matches
+			byte[] data = randomBytes(random, random.nextInt(300), 3);
+			byte[] pattern = randomBytes(random, 1 + random.nextInt(8), 3);
+			int from = data.length == 0 ? 0 : random.nextInt(data.length);
+			int to = from + random.nextInt(data.length - from + 1);
+
+			assertEquals(naiveIndexOf(data, pattern, from, to), new ByteSearch(pattern).indexOf(data, from, to),
+					"pattern " + Arrays.toString(pattern) + " in " + Arrays.toString(data) + " from " + from + " to " + to);
+		}
+	}
+
+	@Test
+	public void findsCrAtEveryPositionOfWord() {
+		for (int length = 0; length <= 40; length++) {
+			for (int cr = 0; cr < length; cr++) {
+				byte[] data = new byte[length];
+				Arrays.fill(data, (byte) 'a');
+				data[cr] = '\r';
+
+				for (ByteBuffer buffer : buffers(data)) {
+					assertEquals(cr, ByteSearch.indexOfCr(buffer, 0, length), "CR at " + cr + " of " + length);
+					assertEquals(-1, ByteSearch.indexOfCr(buffer, 0, cr), "CR at " + cr + " of " + length);
+					assertEquals(-1, ByteSearch.indexOfCr(buffer, cr + 1, length), "CR at " + cr + " of " + length);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void findsFirstOfManyCrs() {
+		byte[] data = bytes("0123456\r\r\r89ABCDEF\r");
+		for (ByteBuffer buffer : buffers(data)) {
+			assertEquals(7, ByteSearch.indexOfCr(buffer, 0, data.length));
+			assertEquals(8, ByteSearch.indexOfCr(buffer, 8, data.length));
+			assertEquals(18, ByteSearch.indexOfCr(buffer, 10, data.length));
+		}
+	}
+
+	@Test
+	public void doesNotMistakeSimilarBytesForCr() {
+		// Bytes which differ from CR only in highest bit or which are CR + 0x80 broke classic "has zero byte" trick
+		byte[] data = {(byte) 0x8D, 0x0C, 0x0E, (byte) 0xFF, 0x00, 0x0D ^ 0x01, (byte) 0x80, 0x2D, (byte) 0x8D, 0x0D};
+		for (ByteBuffer buffer : buffers(data)) {
+			assertEquals(9, ByteSearch.indexOfCr(buffer, 0, data.length));
+			assertEquals(-1, ByteSearch.indexOfCr(buffer, 0, 9));
+		}
+	}
+
+	@Test
+	public void matchesNaiveCrSearchOnRandomData() {
+		Random random = new Random(1);
+		for (int round = 0; round < 2000; round++) {
+			byte[] data = new byte[random.nextInt(100)];
+			random.nextBytes(data);
+			for (int i = 0; i < data.length; i++) {
+				if (random.nextInt(20) == 0) {
+					data[i] = '\r';
+				}
+			}
+
+			int from = data.length == 0 ? 0 : random.nextInt(data.length);
+			int to = from + random.nextInt(data.length - from + 1);
+			int expected = naiveIndexOf(data, new byte[] {'\r'}, from, to);
+			for (ByteBuffer buffer : buffers(data)) {
+				assertEquals(expected, ByteSearch.indexOfCr(buffer, from, to), Arrays.toString(data) + " from " + from + " to " + to);
+			}
+		}
+	}
+
+	@Test
+	public void findsHeadersEndAcrossWords() {
+		for (int offset = 0; offset < 20; offset++) {
+			StringBuilder request = new StringBuilder();
+			for (int i = 0; i < offset; i++) {
+				request.append('x');
+			}
+
+			byte[] data = bytes(request.append("\r\n\r\nbody").toString());
+			for (ByteBuffer buffer : buffers(data)) {
+				assertEquals(offset + 4, ByteSearch.indexOfHeadersEnd(buffer, 0, data.length));
+			}
+		}
+	}
+
+	@Test
+	public void findsHeadersEndAtTailOfBuffer() {
+		byte[] data = bytes("GET / HTTP/1.1\r\nHost: x\r\n\r\n");
+		for (ByteBuffer buffer : buffers(data)) {
+			assertEquals(data.length, ByteSearch.indexOfHeadersEnd(buffer, 0, data.length));
+			assertEquals(-1, ByteSearch.indexOfHeadersEnd(buffer, 0, data.length - 1));
+		}
+	}
+
+	@Test
+	public void skipsIncompleteHeadersEnd() {
+		byte[] data = bytes("a\r\n\rb\r\r\n\r\n");
+		for (ByteBuffer buffer : buffers(data)) {
+			assertEquals(data.length, ByteSearch.indexOfHeadersEnd(buffer, 0, data.length));
+		}
+
+		for (ByteBuffer buffer : buffers(bytes("a\r\nb\r\n\r"))) {
+			assertEquals(-1, ByteSearch.indexOfHeadersEnd(buffer, 0, 7));
+		}
+	}
+
+	/**
+	 * Same data in heap, direct and little-endian buffers, reactors read to direct buffers
+	 */
+	private static ByteBuffer[] buffers(byte[] data) {
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+		direct.put(data).flip();
+		ByteBuffer littleEndian = ByteBuffer.allocateDirect(data.length).order(ByteOrder.LITTLE_ENDIAN);
+		littleEndian.put(data).flip();
+		return new ByteBuffer[] {ByteBuffer.wrap(data), direct, littleEndian};
+	}
+
+	private static int naiveIndexOf(byte[] data, byte[] pattern, int from, int to) {
+		outer:
+		for (int i = from; i <= to - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+
+			return i;
+		}
+
+		return -1;
+	}
+
+	private static byte[] randomBytes(Random random, int length, int alphabet) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) ('a' + random.nextInt(alphabet));
+		}
+
+		return bytes;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
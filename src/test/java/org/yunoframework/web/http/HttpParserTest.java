@@ -0,0 +1,199 @@
+package org.yunoframework.web.http;
+
+import org.junit.jupiter.api.Test;
+import org.yunoframework.web.data.Request;
+import org.yunoframework.web.data.Response;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test of {@see HttpParser#parseRequest(ByteBuffer)}, the same requests are parsed by {@see BaselineHttpParser}
+ * and results are compared. Where baseline parser was wrong, difference is asserted explicitly.
+ * Framing headers of serialized responses are tested too
+ */
+public class HttpParserTest {
+
+	@Test
+	public void parsesSimpleRequestLikeBaseline() {
+		assertSameAsBaseline("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		assertSameAsBaseline("DELETE /users/42 HTTP/1.1\r\nHost: localhost\r\nAccept: */*\r\n\r\n");
+	}
+
+	@Test
+	public void parsesQueryStringLikeBaseline() {
+		assertSameAsBaseline("GET /search?page=1&fields=name,email HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		assertSameAsBaseline("GET /search?Page=2&PAGE=3 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		assertSameAsBaseline("GET /search? HTTP/1.1\r\nHost: localhost\r\n\r\n");
+	}
+
+	@Test
+	public void parsesPercentEncodingLikeBaseline() {
+		assertSameAsBaseline("GET /files/a%20b?q=caf%C3%A9&plus=a%2Bb+c&n%61me=x HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		assertSameAsBaseline("GET /%C5%BC%C3%B3%C5%82w HTTP/1.1\r\nHost: localhost\r\n\r\n");
+	}
+
+	@Test
+	public void parsesRepeatedHeadersLikeBaseline() {
+		assertSameAsBaseline("GET / HTTP/1.1\r\nHost: localhost\r\nX-Value: first\r\nx-value: second\r\nX-VALUE: third\r\n\r\n");
+		assertSameAsBaseline("GET / HTTP/1.1\r\nAccept: text/html\r\nAccept: application/json\r\n\r\n");
+	}
+
+	@Test
+	public void parsesFormBodyLikeBaseline() {
+		String body = "name=mikigal&email=mikigal%40example.com&city=Warsaw&tags=a%2Cb%2Cc&space=a+b";
+		assertSameAsBaseline("POST /form HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/x-www-form-urlencoded\r\n" +
+				"Content-Length: " + body.length() + "\r\n\r\n" + body);
+	}
+
+	@Test
+	public void parsesJsonBodyLikeBaseline() {
+		String body = "{\"name\":\"mikigal\",\"count\":42,\"tags\":[\"fast\",\"simple\"]}";
+		assertSameAsBaseline("POST /json HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n" +
+				"Content-Length: " + body.length() + "\r\n\r\n" + body);
+	}
+
+	@Test
+	public void rejectsMalformedRequestLikeBaseline() {
+		assertSameAsBaseline("FETCH / HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		assertSameAsBaseline("GET / HTTP/1.0\r\nHost: localhost\r\n\r\n");
+	}
+
+	@Test
+	public void trimsOptionalWhitespaceOfHeaderValue() {
+		// Baseline kept whitespaces around value, they're not part of it (RFC 7230, section 3.2)
+		String raw = "GET / HTTP/1.1\r\nHost: localhost\r\nX-Odd:   value \t\r\n\r\n";
+		Request baseline = BaselineHttpParser.parseRequest(bytes(raw));
+		Request parsed = parse(raw);
+		assertEquals("  value \t", baseline.header("X-Odd"));
+		assertEquals("value", parsed.header("X-Odd"));
+		assertEquals(baseline.header("Host"), parsed.header("Host"));
+	}
+
+	@Test
+	public void parsesHeaderWithoutSpaceAfterColon() {
+		// Baseline stopped parsing headers at first line without ": "
+		String raw = "GET / HTTP/1.1\r\nX-Tight:value\r\nHost: localhost\r\n\r\n";
+		Request baseline = BaselineHttpParser.parseRequest(bytes(raw));
+		Request parsed = parse(raw);
+		assertNull(baseline.header("X-Tight"));
+		assertNull(baseline.header("Host"));
+		assertEquals("value", parsed.header("X-Tight"));
+		assertEquals("localhost", parsed.header("Host"));
+	}
+
+	@Test
+	public void parsesEmptyHeaderValue() {
+		// Baseline failed whole request, because empty value was not found after split
+		String raw = "GET / HTTP/1.1\r\nHost: localhost\r\nX-Empty: \r\nX-Empty-Tight:\r\n\r\n";
+		assertEquals(HttpStatus.BAD_REQUEST, BaselineHttpParser.parseRequest(bytes(raw)).getParseResult());
+
+		Request parsed = parse(raw);
+		assertEquals(HttpStatus.OK, parsed.getParseResult());
+		assertEquals("", parsed.header("X-Empty"));
+		assertEquals("", parsed.header("X-Empty-Tight"));
+		assertEquals("localhost", parsed.header("Host"));
+	}
+
+	@Test
+	public void parsesQueryParameterWithoutValue() {
+		// Baseline failed whole request, parameter without "=" has empty value now
+		String raw = "GET /search?flag&page=1 HTTP/1.1\r\nHost: localhost\r\n\r\n";
+		assertEquals(HttpStatus.BAD_REQUEST, BaselineHttpParser.parseRequest(bytes(raw)).getParseResult());
+
+		Request parsed = parse(raw);
+		assertEquals("", parsed.param("flag"));
+		assertEquals("1", parsed.param("page"));
+	}
+
+	@Test
+	public void keepsEqualsSignInParameterValue() {
+		// Baseline cut value at second "="
+		String raw = "GET /calc?expr=a=b&empty= HTTP/1.1\r\nHost: localhost\r\n\r\n";
+		Request parsed = parse(raw);
+		assertEquals("a=b", parsed.param("expr"));
+		assertEquals("", parsed.param("empty"));
+	}
+
+	@Test
+	public void framesResponseWithContentLength() {
+		Response response = new Response(HttpStatus.OK);
+		response.html("Hello");
+		String headers = serialize(response, response.contentLength());
+		assertTrue(headers.startsWith("HTTP/1.1 200 OK\r\n"), headers);
+		assertTrue(headers.contains("\r\nContent-Length: 5\r\n"), headers);
+		assertFalse(headers.contains("Transfer-Encoding"), headers);
+
+		assertTrue(serialize(new Response(HttpStatus.OK), -1).contains("\r\nTransfer-Encoding: chunked\r\n"));
+		assertTrue(serialize(new Response(HttpStatus.NOT_FOUND), 0).contains("\r\nContent-Length: 0\r\n"));
+	}
+
+	@Test
+	public void doesNotFrameResponseWithoutContent() {
+		// RFC 7230, section 3.3.2: Content-Length must not be sent with 1xx and 204 responses
+		for (HttpStatus status : new HttpStatus[] {HttpStatus.CONTINUE, HttpStatus.SWITCHING_PROTOCOLS, HttpStatus.NO_CONTENT}) {
+			for (long contentLength : new long[] {0, 10, -1}) {
+				String headers = serialize(new Response(status), contentLength);
+				assertFalse(headers.contains("Content-Length"), headers);
+				assertFalse(headers.contains("Transfer-Encoding"), headers);
+			}
+		}
+	}
+
+	@Test
+	public void framesNotModifiedOnlyWithKnownLength() {
+		String withoutLength = serialize(new Response(HttpStatus.NOT_MODIFIED), 0);
+		assertFalse(withoutLength.contains("Content-Length"), withoutLength);
+		assertFalse(serialize(new Response(HttpStatus.NOT_MODIFIED), -1).contains("Transfer-Encoding"));
+		assertTrue(serialize(new Response(HttpStatus.NOT_MODIFIED), 42).contains("\r\nContent-Length: 42\r\n"));
+	}
+
+	private static String serialize(Response response, long contentLength) {
+		ByteBuffer target = ByteBuffer.allocate(1024 * 4);
+		HttpParser.serializeHeaders(response, contentLength, target);
+		return new String(target.array(), 0, target.position(), StandardCharsets.US_ASCII);
+	}
+
+	private static void assertSameAsBaseline(String raw) {
+		Request baseline = BaselineHttpParser.parseRequest(bytes(raw));
+		Request parsed = parse(raw);
+
+		assertEquals(baseline.getParseResult(), parsed.getParseResult(), raw);
+		if (baseline.getParseResult() != HttpStatus.OK) {
+			return;
+		}
+
+		assertEquals(baseline.method(), parsed.method(), raw);
+		assertEquals(baseline.path(), parsed.path(), raw);
+		assertEquals(baseline.params(), parsed.params(), raw);
+		assertEquals(baseline.headers(), parsed.headers(), raw);
+		for (Map.Entry<String, String> header : baseline.headers().entrySet()) {
+			assertEquals(header.getValue(), parsed.header(header.getKey()), raw);
+		}
+
+		assertArrayEquals(baseline.content(), parsed.content(), raw);
+		if (baseline.body() instanceof byte[]) {
+			assertArrayEquals((byte[]) baseline.body(), (byte[]) parsed.body(), raw);
+		}
+		else {
+			assertEquals(baseline.body(), parsed.body(), raw);
+		}
+	}
+
+	/**
+	 * Parses request from direct buffer, like reactor receives it
+	 */
+	private static Request parse(String raw) {
+		byte[] bytes = bytes(raw);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		return HttpParser.parseRequest(buffer);
+	}
+
+	private static byte[] bytes(String raw) {
+		return raw.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,74 @@
+package org.yunoframework.web.http;
+
+import com.jsoniter.any.Any;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Decoding from direct buffers, like request's content is received. JSON is copied to per-thread scratch array then,
+ * objects decoded from it must not change when next JSON is decoded
+ */
+public class JsonTest {
+
+	private static final String SECRET = "{\"secret\":\"first-request-token\"}";
+	private static final String NEXT = "{\"other\":\"next-request-next-request-next-request-next-request\"}";
+
+	@Test
+	public void keepsLazyAnyAfterNextDecode() {
+		Any any = Json.decode(direct(SECRET), Any.class);
+		Json.decode(direct(NEXT), Map.class);
+		assertEquals("first-request-token", any.toString("secret"));
+	}
+
+	@Test
+	public void keepsLazyAnyFieldAfterNextDecode() {
+		WithAny withAny = Json.decode(direct("{\"name\":\"first\",\"extra\":" + SECRET + "}"), WithAny.class);
+		Json.decode(direct(NEXT), Map.class);
+		assertEquals("first", withAny.name);
+		assertEquals("first-request-token", withAny.extra.toString("secret"));
+	}
+
+	@Test
+	public void keepsNestedLazyAnyAfterNextDecode() {
+		WithNestedAny nested = Json.decode(direct("{\"items\":[{\"value\":" + SECRET + "}]}"), WithNestedAny.class);
+		Json.decode(direct(NEXT), Map.class);
+		assertEquals("first-request-token", nested.items.get(0).get("value").toString("secret"));
+	}
+
+	@Test
+	public void decodesObjectWithoutAnyFromScratch() {
+		WithoutAny first = Json.decode(direct("{\"name\":\"first\",\"count\":1}"), WithoutAny.class);
+		WithoutAny second = Json.decode(direct("{\"name\":\"second\",\"count\":2}"), WithoutAny.class);
+		assertEquals("first", first.name);
+		assertEquals(1, first.count);
+		assertEquals("second", second.name);
+		assertEquals(2, second.count);
+	}
+
+	private static ByteBuffer direct(String json) {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		return buffer;
+	}
+
+	public static class WithAny {
+		public String name;
+		public Any extra;
+	}
+
+	public static class WithNestedAny {
+		public List<Map<String, Any>> items;
+	}
+
+	public static class WithoutAny {
+		public String name;
+		public int count;
+	}
+}